@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FriendshipIndex;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Общие друзья двух пользователей: двойной join по friendships в UserDbStorage против пересечения
+// списков в FriendshipIndex. Степени пары подобраны под каждый способ пересечения FriendIntersection:
+// merge - оба списка по ~5% пользователей, gallop - ~0.5% против ~50%, bitset - оба по ~30%.
+// sqlJoin и indexWithUsers возвращают загруженных пользователей, как эндпоинт до и после индекса;
+// indexIds - только пересечение в памяти
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CommonFriendsBenchmark {
+    // Первые два пользователя - пара замера, остальные - их возможные друзья
+    private static final int USER_ID = 1;
+    private static final int OTHER_ID = 2;
+
+    @Param({"merge", "gallop", "bitset"})
+    public String regime;
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"42"})
+    public long seed;
+
+    private StorageFixture fixture;
+    private UserStorage userStorage;
+    private FriendshipIndex friendshipIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = StorageFixture.create("h2", SyntheticData.generate(seed, 0, users, 0, 0));
+        userStorage = fixture.getUserStorage();
+        double[] shares = switch (regime) {
+            case "merge" -> new double[]{0.05, 0.05};
+            case "gallop" -> new double[]{0.005, 0.5};
+            case "bitset" -> new double[]{0.3, 0.3};
+            default -> throw new IllegalArgumentException("Неизвестный режим: " + regime);
+        };
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int friendId = OTHER_ID + 1; friendId <= users; friendId++) {
+            if (random.nextDouble() < shares[0]) {
+                userStorage.addFriend(USER_ID, friendId, FriendshipStatus.PENDING);
+            }
+            if (random.nextDouble() < shares[1]) {
+                userStorage.addFriend(OTHER_ID, friendId, FriendshipStatus.PENDING);
+            }
+        }
+        friendshipIndex = new FriendshipIndex(userStorage);
+        friendshipIndex.rebuild();
+
+        List<Integer> expected = userStorage.getCommonFriends(USER_ID, OTHER_ID).stream()
+                .map(User::getId)
+                .sorted()
+                .toList();
+        if (!expected.equals(friendshipIndex.getCommonFriendIds(USER_ID, OTHER_ID))) {
+            throw new IllegalStateException("Индекс и SQL вернули разных общих друзей");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<User> sqlJoin() {
+        return userStorage.getCommonFriends(USER_ID, OTHER_ID);
+    }
+
+    @Benchmark
+    public List<Integer> indexIds() {
+        return friendshipIndex.getCommonFriendIds(USER_ID, OTHER_ID);
+    }
+
+    @Benchmark
+    public List<User> indexWithUsers() {
+        return userStorage.getByIds(friendshipIndex.getCommonFriendIds(USER_ID, OTHER_ID));
+    }
+}
@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Операции FilmStorage на InMemoryFilmStorage и FilmDbStorage (H2).
+// Размеры задаются параметрами: java -jar target/benchmarks.jar FilmStorage -p films=1000000 -p likes=1000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilmStorageBenchmark {
+    @Param({"memory", "h2"})
+    public String storage;
+
+    @Param({"10000"})
+    public int films;
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"100000"})
+    public int likes;
+
+    @Param({"42"})
+    public long seed;
+
+    private SyntheticData data;
+    private StorageFixture fixture;
+    private FilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = SyntheticData.generate(seed, films, users, likes, 0);
+        fixture = StorageFixture.create(storage, data);
+        filmStorage = fixture.getFilmStorage();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    // Случайные id у каждого потока свои и воспроизводимы
+    @State(Scope.Thread)
+    public static class Ids {
+        private SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp(FilmStorageBenchmark benchmark) {
+            random = new SplittableRandom(benchmark.seed + Thread.currentThread().threadId());
+        }
+
+        int film(FilmStorageBenchmark benchmark) {
+            return 1 + random.nextInt(benchmark.films);
+        }
+
+        int user(FilmStorageBenchmark benchmark) {
+            return 1 + random.nextInt(benchmark.users);
+        }
+
+        int index() {
+            return random.nextInt(Integer.MAX_VALUE);
+        }
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmStorage.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public Optional<Film> getById(Ids ids) {
+        return filmStorage.getById(ids.film(this));
+    }
+
+    // Проверка существования без загрузки фильма; сравнивать с getById, выделение памяти - с -prof gc
+    @Benchmark
+    public boolean exists(Ids ids) {
+        return filmStorage.exists(ids.film(this));
+    }
+
+    @Benchmark
+    public List<Film> getAll() {
+        return filmStorage.getAll();
+    }
+
+    // Пары выбираются случайно, поэтому часть вызовов попадает в уже существующий лайк
+    @Benchmark
+    public boolean addLike(Ids ids) {
+        return filmStorage.addLike(ids.film(this), ids.user(this));
+    }
+
+    @Benchmark
+    public Film createWithGenres(Ids ids) {
+        Film film = data.film(ids.index() % films);
+        film.setId(null);
+        return filmStorage.create(film);
+    }
+}
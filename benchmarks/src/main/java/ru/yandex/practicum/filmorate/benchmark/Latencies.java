@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Времена ответов одного эндпоинта в наносекундах. Каждый клиент нагрузочного прогона пишет в свой
+// экземпляр без синхронизации, в конце прогона экземпляры сливаются и сортируются для перцентилей
+final class Latencies {
+    private long[] values = new long[1024];
+    private int size;
+    private long errors;
+
+    void record(long nanos, boolean error) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+        if (error) {
+            errors++;
+        }
+    }
+
+    void addAll(Latencies other) {
+        if (size + other.size > values.length) {
+            values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+        errors += other.errors;
+    }
+
+    int getCount() {
+        return size;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    // Число запросов, секунды измерения и перцентили в миллисекундах
+    Map<String, Object> report(double seconds) {
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("count", size);
+        report.put("errors", errors);
+        report.put("throughput", round(size / seconds));
+        report.put("p50", millis(percentile(sorted, 0.5)));
+        report.put("p95", millis(percentile(sorted, 0.95)));
+        report.put("p99", millis(percentile(sorted, 0.99)));
+        report.put("p999", millis(percentile(sorted, 0.999)));
+        report.put("max", millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        return report;
+    }
+
+    // Перцентиль по ближайшему рангу
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
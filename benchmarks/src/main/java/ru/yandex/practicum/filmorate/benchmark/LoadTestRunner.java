@@ -0,0 +1,281 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+// Нагрузочный прогон HTTP API на одной машине: база H2 в файле заполняется SyntheticData,
+// приложение поднимается в этом же процессе на свободном порту, клиенты в виртуальных потоках
+// шлют запросы по кругу (следующий запрос - сразу после ответа на предыдущий) в заданной пропорции.
+// Запросы прогрева в отчет не попадают. Отчет - JSON с пропускной способностью и перцентилями
+// по каждому эндпоинту, чтобы сравнивать сборки между собой.
+// Параметры в виде --имя=значение, см. DEFAULTS и README
+public final class LoadTestRunner {
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("films", "10000");
+        DEFAULTS.put("users", "10000");
+        DEFAULTS.put("likes", "100000");
+        DEFAULTS.put("friendships", "100000");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("clients", "64");
+        DEFAULTS.put("warmup", "10");
+        DEFAULTS.put("duration", "30");
+        DEFAULTS.put("mix", "like:35,unlike:10,popular:25,friends:10,common:10,catalog:10");
+        DEFAULTS.put("dir", "target/loadtest");
+        DEFAULTS.put("out", "target/loadtest/report.json");
+        DEFAULTS.put("virtual-threads", "false");
+        DEFAULTS.put("write-behind", "false");
+    }
+
+    // Виды запросов: имя в --mix, эндпоинт в отчете и построение пути по случайным id
+    private enum Operation {
+        LIKE("like", "PUT /films/{id}/like/{userId}", (random, data) ->
+                "/films/" + SyntheticData.skewed(random, data.getFilmCount()) + "/like/"
+                        + (1 + random.nextInt(data.getUserCount()))),
+        UNLIKE("unlike", "DELETE /films/{id}/like/{userId}", (random, data) ->
+                "/films/" + SyntheticData.skewed(random, data.getFilmCount()) + "/like/"
+                        + (1 + random.nextInt(data.getUserCount()))),
+        POPULAR("popular", "GET /films/popular", (random, data) ->
+                "/films/popular?count=10"),
+        FRIENDS("friends", "GET /users/{id}/friends", (random, data) ->
+                "/users/" + (1 + random.nextInt(data.getUserCount())) + "/friends"),
+        COMMON("common", "GET /users/{id}/friends/common/{otherId}", (random, data) ->
+                "/users/" + (1 + random.nextInt(data.getUserCount())) + "/friends/common/"
+                        + (1 + random.nextInt(data.getUserCount()))),
+        CATALOG("catalog", "GET /films?after={after}&limit=50", (random, data) ->
+                "/films?after=" + random.nextInt(data.getFilmCount()) + "&limit=50");
+
+        private final String key;
+        private final String endpoint;
+        private final BiFunction<SplittableRandom, SyntheticData, String> path;
+
+        Operation(String key, String endpoint, BiFunction<SplittableRandom, SyntheticData, String> path) {
+            this.key = key;
+            this.endpoint = endpoint;
+            this.path = path;
+        }
+
+        String method() {
+            return endpoint.substring(0, endpoint.indexOf(' '));
+        }
+
+        static Operation byKey(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестный вид запроса в --mix: " + key);
+        }
+    }
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        SyntheticData data = SyntheticData.generate(Long.parseLong(options.get("seed")),
+                Integer.parseInt(options.get("films")), Integer.parseInt(options.get("users")),
+                Integer.parseInt(options.get("likes")), Integer.parseInt(options.get("friendships")));
+        Operation[] mix = mix(options.get("mix"));
+        String url = "jdbc:h2:file:" + prepareDatabase(Path.of(options.get("dir")), data)
+                + ";QUERY_CACHE_SIZE=64";
+
+        // Аргументы командной строки приложения важнее его application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.h2.console.enabled=false",
+                "--logging.level.org.zalando.logbook=WARN",
+                "--logging.level.ru.yandex.practicum.filmorate=WARN",
+                "--spring.threads.virtual.enabled=" + options.get("virtual-threads"),
+                "--filmorate.likes.write-behind.enabled=" + options.get("write-behind"))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Map<String, Object> report = run(URI.create("http://localhost:" + port), data, mix, options);
+            Path out = Path.of(options.get("out"));
+            Files.createDirectories(out.toAbsolutePath().getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), report);
+            System.out.println("Отчет: " + out.toAbsolutePath());
+        }
+    }
+
+    private static Map<String, Object> run(URI base, SyntheticData data, Operation[] mix,
+                                           Map<String, String> options) throws Exception {
+        int clients = Integer.parseInt(options.get("clients"));
+        long warmupNanos = Duration.ofSeconds(Long.parseLong(options.get("warmup"))).toNanos();
+        long durationNanos = Duration.ofSeconds(Long.parseLong(options.get("duration"))).toNanos();
+        long seed = Long.parseLong(options.get("seed"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long measureTo = measureFrom + durationNanos;
+
+        List<Future<Latencies[]>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                SplittableRandom random = new SplittableRandom(seed + i);
+                futures.add(executor.submit(() -> drive(client, base, data, mix, random, measureFrom, measureTo)));
+            }
+        }
+
+        Latencies[] total = new Latencies[Operation.values().length];
+        for (int i = 0; i < total.length; i++) {
+            total[i] = new Latencies();
+        }
+        for (Future<Latencies[]> future : futures) {
+            Latencies[] latencies = future.get();
+            for (int i = 0; i < total.length; i++) {
+                total[i].addAll(latencies[i]);
+            }
+        }
+        return report(options, total, durationNanos / 1e9);
+    }
+
+    // Один клиент: запрос за запросом до конца прогона; время пишется только в окне измерения
+    private static Latencies[] drive(HttpClient client, URI base, SyntheticData data, Operation[] mix,
+                                     SplittableRandom random, long measureFrom, long measureTo) {
+        Latencies[] latencies = new Latencies[Operation.values().length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new Latencies();
+        }
+        while (true) {
+            Operation operation = mix[random.nextInt(mix.length)];
+            HttpRequest request = HttpRequest.newBuilder(base.resolve(operation.path.apply(random, data)))
+                    .method(operation.method(), HttpRequest.BodyPublishers.noBody())
+                    .build();
+            long begin = System.nanoTime();
+            if (begin >= measureTo) {
+                return latencies;
+            }
+            boolean error;
+            try {
+                error = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+            } catch (IOException e) {
+                error = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return latencies;
+            }
+            long end = System.nanoTime();
+            if (begin >= measureFrom && end <= measureTo) {
+                latencies[operation.ordinal()].record(end - begin, error);
+            }
+        }
+    }
+
+    private static Map<String, Object> report(Map<String, String> options, Latencies[] latencies, double seconds) {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        Latencies all = new Latencies();
+        for (Operation operation : Operation.values()) {
+            if (latencies[operation.ordinal()].getCount() > 0) {
+                endpoints.put(operation.endpoint, latencies[operation.ordinal()].report(seconds));
+                all.addAll(latencies[operation.ordinal()]);
+            }
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("java", Runtime.version().toString());
+        report.put("processors", Runtime.getRuntime().availableProcessors());
+        report.put("config", options);
+        report.put("seconds", seconds);
+        Map<String, Object> total = all.report(seconds);
+        report.put("total", total);
+        report.put("endpoints", endpoints);
+        print(endpoints, total);
+        return report;
+    }
+
+    private static void print(Map<String, Object> endpoints, Map<String, Object> total) {
+        String format = "%-45s %9s %7s %10s %9s %9s %9s %9s%n";
+        System.out.printf(format, "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "p999 ms");
+        Map<String, Object> rows = new LinkedHashMap<>(endpoints);
+        rows.put("total", total);
+        rows.forEach((endpoint, value) -> {
+            Map<?, ?> row = (Map<?, ?>) value;
+            System.out.printf(format, endpoint, row.get("count"), row.get("errors"), row.get("throughput"),
+                    row.get("p50"), row.get("p95"), row.get("p99"), row.get("p999"));
+        });
+    }
+
+    // Удаляет базу прошлого прогона и заполняет новую; возвращает путь базы без расширения
+    private static String prepareDatabase(Path dir, SyntheticData data) throws IOException {
+        Path db = dir.resolve("db").toAbsolutePath();
+        if (Files.isDirectory(db)) {
+            try (var files = Files.list(db)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+        Files.createDirectories(db);
+        String path = db.resolve("filmorate").toString();
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl("jdbc:h2:file:" + path);
+            dataSource.setUsername("sa");
+            dataSource.setPassword("password");
+            StorageFixture.seed(dataSource, data);
+        }
+        return path;
+    }
+
+    // Пропорции вида like:35,popular:25 превращаются в массив, где вид запроса повторен weight раз
+    private static Operation[] mix(String value) {
+        List<Operation> result = new ArrayList<>();
+        for (String part : value.split(",")) {
+            String[] entry = part.trim().split(":");
+            Operation operation = Operation.byKey(entry[0]);
+            int weight = entry.length > 1 ? Integer.parseInt(entry[1]) : 1;
+            for (int i = 0; i < weight; i++) {
+                result.add(operation);
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("Пустой --mix");
+        }
+        return result.toArray(Operation[]::new);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Ожидается --имя=значение: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (!DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Неизвестный параметр: " + name + ", доступны " + DEFAULTS.keySet());
+            }
+            options.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
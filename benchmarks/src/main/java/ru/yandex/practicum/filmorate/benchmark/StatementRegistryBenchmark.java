@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import ru.yandex.practicum.filmorate.storage.SqlStatement;
+import ru.yandex.practicum.filmorate.storage.StatementRegistry;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость создания фильма и пользователя: прежний SimpleJdbcInsert, собираемый на каждый вызов
+// (filmInsertPerCall, userInsertPerCall), против готового запроса из StatementRegistry.
+// Таблицы растут за время замера одинаково для обоих способов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StatementRegistryBenchmark {
+    private static final LocalDate RELEASE_DATE = LocalDate.of(2000, 1, 1);
+
+    private StorageFixture fixture;
+    private JdbcTemplate jdbcTemplate;
+    private StatementRegistry statements;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = StorageFixture.create("h2", SyntheticData.generate(42, 0, 0, 0, 0));
+        jdbcTemplate = new JdbcTemplate(fixture.getDataSource());
+        statements = new StatementRegistry(jdbcTemplate);
+        statements.verify();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    // Прежний FilmDbStorage.create без жанров
+    @Benchmark
+    public Number filmInsertPerCall() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("name", "Bench Film");
+        parameters.put("description", "Bench Description");
+        parameters.put("release_date", RELEASE_DATE);
+        parameters.put("duration", 100);
+        parameters.put("mpa_rating_id", 1);
+        return new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("films")
+                .usingColumns("name", "description", "release_date", "duration", "mpa_rating_id")
+                .usingGeneratedKeyColumns("film_id")
+                .executeAndReturnKey(parameters);
+    }
+
+    @Benchmark
+    public int filmRegistry() {
+        return statements.insert(SqlStatement.INSERT_FILM, "Bench Film", "Bench Description", RELEASE_DATE, 100, 1);
+    }
+
+    // Прежний UserDbStorage.create
+    @Benchmark
+    public Number userInsertPerCall() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("email", "bench@mail.ru");
+        parameters.put("login", "bench");
+        parameters.put("name", "Bench");
+        parameters.put("birthday", RELEASE_DATE);
+        return new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("users")
+                .usingGeneratedKeyColumns("user_id")
+                .executeAndReturnKey(parameters);
+    }
+
+    @Benchmark
+    public int userRegistry() {
+        return statements.insert(SqlStatement.INSERT_USER, "bench@mail.ru", "bench", "Bench", RELEASE_DATE);
+    }
+}
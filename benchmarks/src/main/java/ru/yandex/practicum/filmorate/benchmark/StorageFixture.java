@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.storage.StatementRegistry;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Хранилища фильмов и пользователей, заполненные SyntheticData, без контекста Spring.
+// memory - InMemory*Storage, заполняются через их API.
+// h2 - *DbStorage над отдельной базой H2 в памяти: схема из schema.sql/data.sql приложения,
+// данные загружаются пачками insert с явными id, затем счетчики identity сдвигаются за них
+public final class StorageFixture implements AutoCloseable {
+    private static final int LOAD_BATCH = 10_000;
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final HikariDataSource dataSource;
+
+    private StorageFixture(FilmStorage filmStorage, UserStorage userStorage, HikariDataSource dataSource) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.dataSource = dataSource;
+    }
+
+    public static StorageFixture create(String storage, SyntheticData data) {
+        return switch (storage) {
+            case "memory" -> memory(data);
+            case "h2" -> h2(data);
+            default -> throw new IllegalArgumentException("Неизвестное хранилище: " + storage);
+        };
+    }
+
+    public FilmStorage getFilmStorage() {
+        return filmStorage;
+    }
+
+    public UserStorage getUserStorage() {
+        return userStorage;
+    }
+
+    // База фикстуры h2; у memory - null
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public void close() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    private static StorageFixture memory(SyntheticData data) {
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        for (int i = 0; i < data.getFilmCount(); i++) {
+            films.create(data.film(i));
+        }
+        for (int i = 0; i < data.getUserCount(); i++) {
+            users.create(data.user(i));
+        }
+        for (long like : data.getLikes()) {
+            films.addLike(SyntheticData.high(like), SyntheticData.low(like));
+        }
+        long[] friendships = data.getFriendships();
+        for (int i = 0; i < friendships.length; i++) {
+            users.addFriend(SyntheticData.high(friendships[i]), SyntheticData.low(friendships[i]), status(i));
+        }
+        return new StorageFixture(films, users, null);
+    }
+
+    private static StorageFixture h2(SyntheticData data) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=64");
+        dataSource.setUsername("sa");
+        seed(dataSource, data);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        StatementRegistry statements = new StatementRegistry(jdbcTemplate);
+        statements.verify();
+        ReferenceDataRegistry referenceData = new ReferenceDataRegistry(new MpaDbStorage(jdbcTemplate),
+                new GenreDbStorage(jdbcTemplate));
+        referenceData.reload();
+        return new StorageFixture(new FilmDbStorage(jdbcTemplate, referenceData, statements),
+                new UserDbStorage(jdbcTemplate, statements), dataSource);
+    }
+
+    // Схема приложения и синтетические данные в пустой базе
+    public static void seed(DataSource dataSource, SyntheticData data) {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(dataSource);
+        load(new JdbcTemplate(dataSource), data);
+    }
+
+    private static void load(JdbcTemplate jdbcTemplate, SyntheticData data) {
+        int[] likesCount = new int[data.getFilmCount() + 1];
+        for (long like : data.getLikes()) {
+            likesCount[SyntheticData.high(like)]++;
+        }
+
+        List<Object[]> films = new ArrayList<>();
+        List<Object[]> filmGenres = new ArrayList<>();
+        for (int i = 0; i < data.getFilmCount(); i++) {
+            Film film = data.film(i);
+            int id = i + 1;
+            films.add(new Object[]{id, film.getName(), film.getDescription(), Date.valueOf(film.getReleaseDate()),
+                    film.getDuration(), film.getMpa().getId(), likesCount[id]});
+            for (Genre genre : film.getGenres()) {
+                filmGenres.add(new Object[]{id, genre.getId()});
+            }
+        }
+        batch(jdbcTemplate, "INSERT INTO films (film_id, name, description, release_date, duration, mpa_rating_id, " +
+                "likes_count) VALUES (?, ?, ?, ?, ?, ?, ?)", films);
+        batch(jdbcTemplate, "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmGenres);
+
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < data.getUserCount(); i++) {
+            User user = data.user(i);
+            users.add(new Object[]{i + 1, user.getEmail(), user.getLogin(), user.getName(),
+                    Date.valueOf(user.getBirthday())});
+        }
+        batch(jdbcTemplate, "INSERT INTO users (user_id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)", users);
+
+        List<Object[]> likes = new ArrayList<>();
+        for (long like : data.getLikes()) {
+            likes.add(new Object[]{SyntheticData.high(like), SyntheticData.low(like)});
+        }
+        batch(jdbcTemplate, "INSERT INTO likes (film_id, user_id) VALUES (?, ?)", likes);
+
+        List<Object[]> friendships = new ArrayList<>();
+        long[] pairs = data.getFriendships();
+        for (int i = 0; i < pairs.length; i++) {
+            friendships.add(new Object[]{SyntheticData.high(pairs[i]), SyntheticData.low(pairs[i]),
+                    status(i).toString()});
+        }
+        batch(jdbcTemplate, "INSERT INTO friendships (user_id, friend_id, status) VALUES (?, ?, ?)", friendships);
+
+        jdbcTemplate.execute("ALTER TABLE films ALTER COLUMN film_id RESTART WITH " + (data.getFilmCount() + 1));
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN user_id RESTART WITH " + (data.getUserCount() + 1));
+    }
+
+    private static void batch(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += LOAD_BATCH) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + LOAD_BATCH, rows.size())));
+        }
+    }
+
+    // Каждая третья дружба подтверждена
+    private static FriendshipStatus status(int index) {
+        return index % 3 == 0 ? FriendshipStatus.CONFIRMED : FriendshipStatus.PENDING;
+    }
+}
@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Детерминированный набор синтетических данных: одинаковые seed и размеры дают одинаковые фильмы,
+// пользователей, лайки и дружбу. Популярность фильмов и число друзей распределены неравномерно:
+// немногие фильмы и пользователи собирают большую часть связей, как в живом каталоге.
+// Пары лайков и дружбы уникальны и упакованы в long: (id << 32) | id
+public final class SyntheticData {
+    // Показатель перекоса: чем больше, тем сильнее связи концентрируются на малых id
+    private static final double SKEW = 3.0;
+    private static final int MPA_COUNT = 5;
+    private static final int GENRE_COUNT = 6;
+
+    private final long seed;
+    private final int films;
+    private final int users;
+    private final long[] likes;
+    private final long[] friendships;
+
+    private SyntheticData(long seed, int films, int users, long[] likes, long[] friendships) {
+        this.seed = seed;
+        this.films = films;
+        this.users = users;
+        this.likes = likes;
+        this.friendships = friendships;
+    }
+
+    public static SyntheticData generate(long seed, int films, int users, int likes, int friendships) {
+        SplittableRandom random = new SplittableRandom(seed);
+        return new SyntheticData(seed, films, users,
+                pairs(random, likes, films, users),
+                friendPairs(random, friendships, users));
+    }
+
+    public int getFilmCount() {
+        return films;
+    }
+
+    public int getUserCount() {
+        return users;
+    }
+
+    public long[] getLikes() {
+        return likes;
+    }
+
+    public long[] getFriendships() {
+        return friendships;
+    }
+
+    // Фильм с id = index + 1: MPA и от нуля до трех жанров зависят только от seed и index
+    public Film film(int index) {
+        SplittableRandom random = new SplittableRandom(seed ^ (0x9E3779B97F4A7C15L * (index + 1)));
+        Film film = new Film();
+        film.setName("Film " + (index + 1));
+        film.setDescription("Synthetic film " + (index + 1));
+        film.setReleaseDate(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(365 * 70)));
+        film.setDuration(60 + random.nextInt(120));
+        film.setMpa(new Mpa(1 + random.nextInt(MPA_COUNT), null, null));
+        List<Genre> genres = new ArrayList<>();
+        int genreCount = random.nextInt(4);
+        int first = random.nextInt(GENRE_COUNT);
+        for (int i = 0; i < genreCount; i++) {
+            genres.add(new Genre(1 + (first + i) % GENRE_COUNT, null));
+        }
+        film.setGenres(genres);
+        return film;
+    }
+
+    public User user(int index) {
+        User user = new User();
+        user.setEmail("user" + (index + 1) + "@mail.ru");
+        user.setLogin("user" + (index + 1));
+        user.setName("User " + (index + 1));
+        user.setBirthday(LocalDate.of(1960, 1, 1).plusDays((index * 7919L) % (365 * 50)));
+        return user;
+    }
+
+    // Уникальные пары (фильм, пользователь): фильм с перекосом к малым id, пользователь равномерно
+    private static long[] pairs(SplittableRandom random, int count, int films, int users) {
+        if (films == 0 || users == 0) {
+            return new long[0];
+        }
+        long limit = Math.min(count, (long) films * users);
+        long[] result = new long[(int) limit];
+        int size = 0;
+        while (size < limit) {
+            while (size < limit) {
+                result[size++] = pack(skewed(random, films), 1 + random.nextInt(users));
+            }
+            size = unique(result);
+        }
+        return result;
+    }
+
+    // Уникальные направленные пары дружбы без петель; друг выбирается с перекосом
+    private static long[] friendPairs(SplittableRandom random, int count, int users) {
+        if (users < 2) {
+            return new long[0];
+        }
+        long limit = Math.min(count, (long) users * (users - 1));
+        long[] result = new long[(int) limit];
+        int size = 0;
+        while (size < limit) {
+            while (size < limit) {
+                int userId = 1 + random.nextInt(users);
+                int friendId = skewed(random, users);
+                if (friendId != userId) {
+                    result[size++] = pack(userId, friendId);
+                }
+            }
+            size = unique(result);
+        }
+        return result;
+    }
+
+    // id от 1 до bound с перекосом к малым значениям
+    static int skewed(SplittableRandom random, int bound) {
+        return 1 + (int) (bound * Math.pow(random.nextDouble(), SKEW));
+    }
+
+    // Сортирует и сжимает массив до уникальных значений; возвращает их число
+    private static int unique(long[] values) {
+        Arrays.sort(values);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (size == 0 || values[size - 1] != values[i]) {
+                values[size++] = values[i];
+            }
+        }
+        return size;
+    }
+
+    static long pack(int high, int low) {
+        return ((long) high << Integer.SIZE) | (low & 0xFFFFFFFFL);
+    }
+
+    static int high(long pair) {
+        return (int) (pair >>> Integer.SIZE);
+    }
+
+    static int low(long pair) {
+        return (int) pair;
+    }
+}
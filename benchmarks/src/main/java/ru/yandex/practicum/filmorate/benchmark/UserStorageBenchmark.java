@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Операции UserStorage на InMemoryUserStorage и UserDbStorage (H2).
+// Размеры задаются параметрами: java -jar target/benchmarks.jar UserStorage -p users=1000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserStorageBenchmark {
+    @Param({"memory", "h2"})
+    public String storage;
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"100000"})
+    public int friendships;
+
+    @Param({"42"})
+    public long seed;
+
+    private StorageFixture fixture;
+    private UserStorage userStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = StorageFixture.create(storage, SyntheticData.generate(seed, 0, users, 0, friendships));
+        userStorage = fixture.getUserStorage();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Ids {
+        private SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp(UserStorageBenchmark benchmark) {
+            random = new SplittableRandom(benchmark.seed + Thread.currentThread().threadId());
+        }
+
+        int user(UserStorageBenchmark benchmark) {
+            return 1 + random.nextInt(benchmark.users);
+        }
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends(Ids ids) {
+        return userStorage.getCommonFriends(ids.user(this), ids.user(this));
+    }
+
+    @Benchmark
+    public Optional<User> getById(Ids ids) {
+        return userStorage.getById(ids.user(this));
+    }
+
+    // Прежняя проверка пары пользователей в UserService: два getById с загрузкой дружбы
+    @Benchmark
+    public void getByIdPair(Ids ids, Blackhole blackhole) {
+        blackhole.consume(userStorage.getById(ids.user(this)));
+        blackhole.consume(userStorage.getById(ids.user(this)));
+    }
+
+    // Та же проверка одним запросом; выделение памяти сравнивается с -prof gc
+    @Benchmark
+    public boolean existsAll(Ids ids) {
+        return userStorage.existsAll(ids.user(this), ids.user(this));
+    }
+
+    @Benchmark
+    public List<User> getAll() {
+        return userStorage.getAll();
+    }
+}
@@ -1,22 +1,36 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.List;
 
 @RestController
 @RequestMapping("/films")
+@Slf4j
 public class FilmController {
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -37,11 +51,44 @@ public class FilmController {
         return filmService.getAll();
     }
 
+    // Потоковая выгрузка всего каталога: фильмы пишутся в ответ порциями по мере чтения из базы
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> exportAllFilms() {
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            try {
+                generator.writeStartArray();
+                filmService.exportAll(films -> writeFilms(generator, films));
+                generator.writeEndArray();
+                generator.close();
+            } catch (IOException | RuntimeException e) {
+                // Статус 200 уже отправлен: массив не закрываем, а ошибка обрывает соединение,
+                // чтобы клиент не принял обрезанную выгрузку за полную
+                log.error("Потоковая выгрузка фильмов прервана", e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping(params = "limit")
+    public CursorPage<Film> getFilmsPage(@RequestParam(defaultValue = "0") int after, @RequestParam int limit) {
+        return filmService.getPage(after, limit);
+    }
+
     @GetMapping("/{id}")
     public Film getFilmById(@PathVariable int id) {
         return filmService.getById(id);
     }
 
+    @PostMapping("/likes:batch")
+    public List<LikeBatchResult> addLikes(@RequestBody List<FilmLike> likes) {
+        return filmService.addLikes(likes);
+    }
+
     @PutMapping("/{id}/like/{userId}")
     public void addLike(@PathVariable int id, @PathVariable int userId) {
         filmService.addLike(id, userId);
@@ -53,7 +100,26 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getPopularFilms(count);
+    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count,
+                                      @RequestParam(required = false) Integer genreId,
+                                      @RequestParam(required = false) Integer year,
+                                      @RequestParam(required = false) Integer mpaId) {
+        return filmService.getPopularFilms(count, genreId, year, mpaId);
+    }
+
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam String query, @RequestParam(defaultValue = "10") int count) {
+        return filmService.search(query, count);
+    }
+
+    private void writeFilms(JsonGenerator generator, List<Film> films) {
+        try {
+            for (Film film : films) {
+                objectMapper.writeValue(generator, film);
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
\ No newline at end of file
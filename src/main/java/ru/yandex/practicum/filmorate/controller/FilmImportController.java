@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.FilmImportResult;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+// Отдельный контроллер: путь /films:import не укладывается в префикс /films у FilmController
+@RestController
+@RequiredArgsConstructor
+public class FilmImportController {
+    private final FilmImportService filmImportService;
+
+    @PostMapping(value = "/films:import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public FilmImportResult importFilms(InputStream body) throws IOException {
+        return filmImportService.importFilms(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.storage.StatementStats;
+
+import java.io.IOException;
+
+// Число запросов к базе на каждый HTTP-запрос: распределение filmorate.http.statements по шаблону URI
+// и детектор N+1 — запросы, выполнившие больше filmorate.metrics.n-plus-one-threshold запросов,
+// попадают в лог вместе с самым частым SQL и считаются в filmorate.http.n-plus-one.
+// Время ответа по эндпоинтам пишет стандартная метрика http.server.requests
+@Component
+@Slf4j
+public class RequestMetricsFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+    private final int threshold;
+
+    @Autowired
+    public RequestMetricsFilter(MeterRegistry meterRegistry,
+                                @Value("${filmorate.metrics.n-plus-one-threshold:20}") int threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (StatementStats stats = StatementStats.open()) {
+            chain.doFilter(request, response);
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, StatementStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        int total = stats.getTotal();
+        DistributionSummary.builder("filmorate.http.statements")
+                .description("Запросы к базе на один HTTP-запрос")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(total);
+        if (total > threshold) {
+            Counter.builder("filmorate.http.n-plus-one")
+                    .description("HTTP-запросы, выполнившие больше запросов к базе, чем допускает порог")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            stats.getMostRepeated().ifPresent(sql -> log.warn(
+                    "Возможен N+1: {} {} выполнил {} запросов к базе, чаще всего ({} раз): {}",
+                    request.getMethod(), uri, total, sql.getValue(), sql.getKey()));
+        }
+    }
+}
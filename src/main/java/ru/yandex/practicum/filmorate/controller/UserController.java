@@ -3,7 +3,10 @@ package ru.yandex.practicum.filmorate.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.CursorPage;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
@@ -13,10 +16,12 @@ import java.util.List;
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final FilmService filmService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FilmService filmService) {
         this.userService = userService;
+        this.filmService = filmService;
     }
 
     @PostMapping
@@ -37,6 +42,16 @@ public class UserController {
         return userService.getAll();
     }
 
+    @GetMapping(params = "limit")
+    public CursorPage<User> getUsersPage(@RequestParam(defaultValue = "0") int after, @RequestParam int limit) {
+        return userService.getPage(after, limit);
+    }
+
+    @GetMapping("/common-friends")
+    public List<User> getCommonFriendsOfAll(@RequestParam List<Integer> ids) {
+        return userService.getCommonFriends(ids);
+    }
+
     @GetMapping("/{id}")
     public User getUserById(@PathVariable int id) {
         return userService.getById(id);
@@ -62,6 +77,16 @@ public class UserController {
         return userService.getFriends(id);
     }
 
+    @GetMapping("/{id}/recommendations")
+    public List<User> getRecommendations(@PathVariable int id, @RequestParam(defaultValue = "10") int limit) {
+        return userService.getRecommendations(id, limit);
+    }
+
+    @GetMapping("/{id}/film-recommendations")
+    public List<Film> getFilmRecommendations(@PathVariable int id, @RequestParam(defaultValue = "10") int limit) {
+        return filmService.getRecommendations(id, limit);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getCommonFriends(@PathVariable int id, @PathVariable int otherId) {
         return userService.getCommonFriends(id, otherId);
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.exception;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -24,9 +25,21 @@ public class ErrorHandler {
                 .body(Map.of("error", e.getMessage()));
     }
 
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<Map<String, String>> handleOverloadedException(final OverloadedException e) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", e.getMessage()));
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
-    public Map<String, String> handleThrowable(final Throwable e) {
+    public Map<String, String> handleThrowable(final Throwable e, final HttpServletResponse response) throws Throwable {
+        // Ответ уже начат (потоковая выгрузка): тело ошибки не записать, поэтому исключение уходит
+        // контейнеру, и тот обрывает соединение
+        if (response.isCommitted()) {
+            throw e;
+        }
         return Map.of("error", "Произошла непредвиденная ошибка.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.exception;
+
+// Сервис временно не принимает запись: очередь переполнена
+public class OverloadedException extends RuntimeException {
+    public OverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class FilmImportError {
+    // Номер строки во входных данных, начиная с 1
+    private long line;
+    private String error;
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LikeBatchResult {
+    private Integer filmId;
+    private Integer userId;
+    private LikeBatchStatus status;
+}
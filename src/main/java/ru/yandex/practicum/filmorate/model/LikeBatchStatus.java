@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.model;
+
+public enum LikeBatchStatus {
+    ADDED,            // лайк поставлен
+    ALREADY_LIKED,    // лайк уже был
+    FILM_NOT_FOUND,   // фильм не найден
+    USER_NOT_FOUND,   // пользователь не найден
+    INVALID           // не указан id фильма или пользователя
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmImportError;
+import ru.yandex.practicum.filmorate.model.FilmImportResult;
+import ru.yandex.practicum.filmorate.storage.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Импорт фильмов из NDJSON: по одному фильму на строку.
+// Строки читаются и проверяются по одной, валидные фильмы пишутся пачками по chunkSize,
+// каждая пачка в своей транзакции. Некорректные строки пропускаются и попадают в отчет
+@Service
+@Slf4j
+public class FilmImportService {
+    private final FilmService filmService;
+    private final FilmStorage filmStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final FilmSearchIndex searchIndex;
+    private final ObjectReader filmReader;
+    private final int chunkSize;
+
+    @Autowired
+    public FilmImportService(FilmService filmService, FilmStorage filmStorage,
+                             FilmPopularityIndex popularityIndex, FilmSearchIndex searchIndex,
+                             ObjectMapper objectMapper,
+                             @Value("${filmorate.import.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("filmorate.import.chunk-size должен быть положительным: " + chunkSize);
+        }
+        this.filmService = filmService;
+        this.filmStorage = filmStorage;
+        this.popularityIndex = popularityIndex;
+        this.searchIndex = searchIndex;
+        this.filmReader = objectMapper.readerFor(Film.class);
+        this.chunkSize = chunkSize;
+    }
+
+    public FilmImportResult importFilms(Reader input) throws IOException {
+        BufferedReader reader = new BufferedReader(input);
+        List<Film> chunk = new ArrayList<>(chunkSize);
+        List<FilmImportError> errors = new ArrayList<>();
+        int imported = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                Film film = filmReader.readValue(line);
+                if (film == null) {
+                    throw new ValidationException("Строка должна содержать объект фильма.");
+                }
+                filmService.validateAndResolve(film);
+                chunk.add(film);
+            } catch (JsonProcessingException e) {
+                errors.add(new FilmImportError(lineNumber, "Некорректный JSON: " + e.getOriginalMessage()));
+            } catch (ValidationException | NotFoundException e) {
+                errors.add(new FilmImportError(lineNumber, e.getMessage()));
+            }
+            if (chunk.size() == chunkSize) {
+                imported += flush(chunk);
+            }
+        }
+        imported += flush(chunk);
+        log.info("Импортировано {} фильмов, пропущено строк с ошибками: {}", imported, errors.size());
+        return new FilmImportResult(imported, errors);
+    }
+
+    private int flush(List<Film> chunk) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        filmStorage.createAll(chunk);
+        chunk.forEach(popularityIndex::addFilm);
+        chunk.forEach(searchIndex::put);
+        int size = chunk.size();
+        chunk.clear();
+        return size;
+    }
+}
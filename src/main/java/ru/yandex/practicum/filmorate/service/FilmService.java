@@ -5,64 +5,92 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
+import ru.yandex.practicum.filmorate.model.LikeBatchStatus;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.LikeWriteBuffer;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class FilmService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    private static final int MAX_RECOMMENDATIONS = 100;
+    private static final int MAX_LIKES_BATCH_SIZE = 10_000;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int LIKE_LOCK_STRIPES = 64;
+
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
     private final MpaService mpaService;
     private final GenreService genreService;
+    private final FilmPopularityIndex popularityIndex;
+    private final FilmSearchIndex searchIndex;
+    private final LikeMatrix likeMatrix;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final ParallelChecks parallelChecks;
+    // Лайк пишется в базу или очередь, матрицу и рейтинг под блокировкой пары "фильм, пользователь",
+    // чтобы одновременные лайк и отмена одной пары применялись ко всем трем в одном порядке
+    private final ReentrantLock[] likeLocks = new ReentrantLock[LIKE_LOCK_STRIPES];
     private final LocalDate minReleaseDate = LocalDate.of(1895, 12, 28);
 
     @Autowired
     public FilmService(FilmStorage filmStorage, UserStorage userStorage,
-                       MpaService mpaService, GenreService genreService) {
+                       MpaService mpaService, GenreService genreService,
+                       FilmPopularityIndex popularityIndex, FilmSearchIndex searchIndex, LikeMatrix likeMatrix,
+                       LikeWriteBuffer likeWriteBuffer, ParallelChecks parallelChecks) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
         this.mpaService = mpaService;
         this.genreService = genreService;
+        this.popularityIndex = popularityIndex;
+        this.searchIndex = searchIndex;
+        this.likeMatrix = likeMatrix;
+        this.likeWriteBuffer = likeWriteBuffer;
+        this.parallelChecks = parallelChecks;
+        for (int i = 0; i < likeLocks.length; i++) {
+            likeLocks[i] = new ReentrantLock();
+        }
     }
 
     public Film create(Film film) {
-        validateFilm(film);
-        validateMpa(film.getMpa());
-        validateGenres(film.getGenres());
-
-        // Явная проверка существования MPA и обновление объекта
-        Mpa existingMpa = mpaService.getMpaById(film.getMpa().getId());
-        film.setMpa(existingMpa);
+        validateAndResolve(film);
 
         Film createdFilm = filmStorage.create(film);
+        popularityIndex.addFilm(createdFilm);
+        searchIndex.put(createdFilm);
         log.info("Создан фильм с id: {}", createdFilm.getId());
         return createdFilm;
     }
 
     public Film update(Film film) {
-        validateFilm(film);
-        validateMpa(film.getMpa());
-        validateGenres(film.getGenres());
-
-        // Явная проверка существования MPA и обновление объекта
-        Mpa existingMpa = mpaService.getMpaById(film.getMpa().getId());
-        film.setMpa(existingMpa);
-
-        if (filmStorage.getById(film.getId()).isEmpty()) {
-            throw new NotFoundException("Фильм с id=" + film.getId() + " не найден.");
-        }
+        // MPA и жанры сверяются со справочниками в памяти, в базу идет только проверка фильма:
+        // распараллеливать ее не с чем
+        validateAndResolve(film);
+        checkFilmExists(film.getId());
 
         Film updatedFilm = filmStorage.update(film);
+        popularityIndex.updateFilm(updatedFilm);
+        searchIndex.put(updatedFilm);
         log.info("Обновлен фильм с id: {}", updatedFilm.getId());
         return updatedFilm;
     }
@@ -72,6 +100,19 @@ public class FilmService {
         return filmStorage.getAll();
     }
 
+    public void exportAll(Consumer<List<Film>> action) {
+        log.debug("Получен запрос на потоковую выгрузку всех фильмов");
+        filmStorage.forEachChunk(EXPORT_CHUNK_SIZE, action);
+    }
+
+    public CursorPage<Film> getPage(int afterId, int limit) {
+        validatePage(afterId, limit);
+        log.debug("Получен запрос на получение {} фильмов после id={}", limit, afterId);
+        List<Film> films = filmStorage.getPage(afterId, limit);
+        Integer nextCursor = films.size() == limit ? films.get(films.size() - 1).getId() : null;
+        return new CursorPage<>(films, nextCursor);
+    }
+
     public Film getById(int id) {
         log.debug("Получен запрос на получение фильма с id={}", id);
         return filmStorage.getById(id)
@@ -79,22 +120,215 @@ public class FilmService {
     }
 
     public void addLike(int filmId, int userId) {
-        checkFilmExists(filmId);
-        checkUserExists(userId);
-        filmStorage.addLike(filmId, userId);
+        checkFilmAndUserExist(filmId, userId);
+        if (likeWriteBuffer.isEnabled()) {
+            bufferLike(filmId, userId);
+        } else {
+            withLikeLock(filmId, userId, () -> writeLike(filmId, userId, true));
+        }
         log.info("Пользователь с id={} поставил лайк фильму с id={}", userId, filmId);
     }
 
     public void removeLike(int filmId, int userId) {
-        checkFilmExists(filmId);
-        checkUserExists(userId);
-        filmStorage.removeLike(filmId, userId);
+        checkFilmAndUserExist(filmId, userId);
+        if (likeWriteBuffer.isEnabled()) {
+            bufferUnlike(filmId, userId);
+        } else {
+            withLikeLock(filmId, userId, () -> writeLike(filmId, userId, false));
+        }
         log.info("Пользователь с id={} удалил лайк с фильма с id={}", userId, filmId);
     }
 
-    public List<Film> getPopularFilms(int count) {
-        log.debug("Получен запрос на получение {} популярных фильмов", count);
-        return filmStorage.getPopularFilms(count);
+    // Существование фильмов и пользователей проверяется одним запросом на каждый тип,
+    // валидные лайки пишутся одной пачкой; результат по каждому элементу в порядке запроса
+    public List<LikeBatchResult> addLikes(List<FilmLike> likes) {
+        if (likes == null || likes.isEmpty() || likes.size() > MAX_LIKES_BATCH_SIZE) {
+            throw new ValidationException("Пачка должна содержать от 1 до " + MAX_LIKES_BATCH_SIZE + " лайков.");
+        }
+        Set<Integer> existingFilms = filmStorage.getExistingIds(likes.stream()
+                .map(like -> like == null ? null : like.getFilmId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        Set<Integer> existingUsers = userStorage.getExistingIds(likes.stream()
+                .map(like -> like == null ? null : like.getUserId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        LikeBatchStatus[] statuses = new LikeBatchStatus[likes.size()];
+        List<FilmLike> valid = new ArrayList<>();
+        List<Integer> validPositions = new ArrayList<>();
+        for (int i = 0; i < likes.size(); i++) {
+            FilmLike like = likes.get(i);
+            if (like == null || like.getFilmId() == null || like.getUserId() == null) {
+                statuses[i] = LikeBatchStatus.INVALID;
+            } else if (!existingFilms.contains(like.getFilmId())) {
+                statuses[i] = LikeBatchStatus.FILM_NOT_FOUND;
+            } else if (!existingUsers.contains(like.getUserId())) {
+                statuses[i] = LikeBatchStatus.USER_NOT_FOUND;
+            } else {
+                valid.add(like);
+                validPositions.add(i);
+            }
+        }
+
+        boolean[] added = likeWriteBuffer.isEnabled() ? bufferLikes(valid) : writeLikes(valid);
+        for (int i = 0; i < added.length; i++) {
+            statuses[validPositions.get(i)] = added[i] ? LikeBatchStatus.ADDED : LikeBatchStatus.ALREADY_LIKED;
+        }
+        log.info("Обработана пачка из {} лайков, из них валидных {}", likes.size(), valid.size());
+
+        List<LikeBatchResult> results = new ArrayList<>(likes.size());
+        for (int i = 0; i < likes.size(); i++) {
+            FilmLike like = likes.get(i);
+            results.add(new LikeBatchResult(like == null ? null : like.getFilmId(),
+                    like == null ? null : like.getUserId(), statuses[i]));
+        }
+        return results;
+    }
+
+    // Отложенная запись: изменился ли лайк, решает матрица в памяти; рейтинг обновляется сразу,
+    // поэтому getPopularFilms видит лайк до записи в базу. Место в очереди резервируется до изменений
+    // в памяти, чтобы при перегрузке запрос отклонялся, ничего не изменив
+    private void bufferLike(int filmId, int userId) {
+        likeWriteBuffer.reserve(1);
+        withLikeLock(filmId, userId, () -> applyBuffered(filmId, userId, true));
+    }
+
+    private void bufferUnlike(int filmId, int userId) {
+        likeWriteBuffer.reserve(1);
+        withLikeLock(filmId, userId, () -> applyBuffered(filmId, userId, false));
+    }
+
+    // Синхронная запись: база, затем матрица и рейтинг; вызывается под блокировкой пары
+    private boolean writeLike(int filmId, int userId, boolean like) {
+        if (like) {
+            if (!filmStorage.addLike(filmId, userId)) {
+                return false;
+            }
+            popularityIndex.addLike(filmId);
+            likeMatrix.addLike(filmId, userId);
+        } else {
+            if (!filmStorage.removeLike(filmId, userId)) {
+                return false;
+            }
+            popularityIndex.removeLike(filmId);
+            likeMatrix.removeLike(filmId, userId);
+        }
+        return true;
+    }
+
+    // Занимает одно зарезервированное место; если операция ничего не изменила или упала,
+    // место возвращается в очередь
+    private boolean applyBuffered(int filmId, int userId, boolean like) {
+        boolean submitted = false;
+        try {
+            if (!(like ? likeMatrix.addLike(filmId, userId) : likeMatrix.removeLike(filmId, userId))) {
+                return false;
+            }
+            if (like) {
+                popularityIndex.addLike(filmId);
+            } else {
+                popularityIndex.removeLike(filmId);
+            }
+            likeWriteBuffer.submitReserved(filmId, userId, like);
+            submitted = true;
+            return true;
+        } finally {
+            if (!submitted) {
+                likeWriteBuffer.release(1);
+            }
+        }
+    }
+
+    // Пачка пишется одним запросом, поэтому берутся блокировки всех ее пар сразу,
+    // по возрастанию номера, чтобы не взаимоблокироваться с другими пачками
+    private boolean[] writeLikes(List<FilmLike> likes) {
+        boolean[] stripes = new boolean[LIKE_LOCK_STRIPES];
+        likes.forEach(like -> stripes[likeStripe(like.getFilmId(), like.getUserId())] = true);
+        int locked = 0;
+        try {
+            for (; locked < LIKE_LOCK_STRIPES; locked++) {
+                if (stripes[locked]) {
+                    likeLocks[locked].lock();
+                }
+            }
+            boolean[] added = filmStorage.addLikes(likes);
+            for (int i = 0; i < added.length; i++) {
+                if (added[i]) {
+                    popularityIndex.addLike(likes.get(i).getFilmId());
+                    likeMatrix.addLike(likes.get(i).getFilmId(), likes.get(i).getUserId());
+                }
+            }
+            return added;
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                if (stripes[i]) {
+                    likeLocks[i].unlock();
+                }
+            }
+        }
+    }
+
+    private boolean[] bufferLikes(List<FilmLike> likes) {
+        // Место резервируется сразу на всю пачку: при перегрузке она отклоняется, не изменив ни одного лайка
+        likeWriteBuffer.reserve(likes.size());
+        boolean[] added = new boolean[likes.size()];
+        int applied = 0;
+        try {
+            for (int i = 0; i < likes.size(); i++) {
+                applied++;
+                FilmLike like = likes.get(i);
+                added[i] = withLikeLock(like.getFilmId(), like.getUserId(),
+                        () -> applyBuffered(like.getFilmId(), like.getUserId(), true));
+            }
+        } finally {
+            // При ошибке места необработанного остатка пачки возвращаются
+            likeWriteBuffer.release(likes.size() - applied);
+        }
+        return added;
+    }
+
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year, Integer mpaId) {
+        log.debug("Получен запрос на получение {} популярных фильмов (жанр {}, год {}, MPA {})",
+                count, genreId, year, mpaId);
+        // Порядок берем из рейтинга в памяти, сами фильмы загружаем одним запросом по id
+        return filmStorage.getByIds(popularityIndex.getTopFilmIds(count, genreId, year, mpaId));
+    }
+
+    public List<Film> search(String query, int count) {
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Параметр query не может быть пустым.");
+        }
+        if (count < 1 || count > MAX_SEARCH_RESULTS) {
+            throw new ValidationException("Параметр count должен быть от 1 до " + MAX_SEARCH_RESULTS + ".");
+        }
+        log.debug("Получен запрос на поиск фильмов: {}", query);
+        // Порядок берем из поискового индекса в памяти, сами фильмы загружаем одним запросом по id
+        return filmStorage.getByIds(searchIndex.search(query, count));
+    }
+
+    public List<Film> getRecommendations(int userId, int limit) {
+        if (limit < 1 || limit > MAX_RECOMMENDATIONS) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_RECOMMENDATIONS + ".");
+        }
+        checkUserExists(userId);
+        log.debug("Получен запрос на рекомендации фильмов для пользователя с id={}", userId);
+        return filmStorage.getByIds(likeMatrix.getRecommendedFilmIds(userId, limit));
+    }
+
+    // Проверки фильма перед созданием, обновлением и импортом: последовательно, MPA и жанры сверяются
+    // со справочниками в памяти, отдельный поток на них дороже самой проверки
+    public void validateAndResolve(Film film) {
+        validateFilm(film);
+        resolveMpa(film);
+        validateGenres(film.getGenres());
+    }
+
+    // Явная проверка существования MPA и обновление объекта
+    private void resolveMpa(Film film) {
+        validateMpa(film.getMpa());
+        Mpa existingMpa = mpaService.getMpaById(film.getMpa().getId());
+        film.setMpa(existingMpa);
     }
 
     private void validateFilm(Film film) {
@@ -110,12 +344,21 @@ public class FilmService {
             log.error("Попытка создания фильма с неверной датой релиза: {}", film.getReleaseDate());
             throw new ValidationException("Дата релиза — не раньше 28 декабря 1895 года.");
         }
-        if (film.getDuration() <= 0) {
+        if (film.getDuration() == null || film.getDuration() <= 0) {
             log.error("Попытка создания фильма с отрицательной продолжительностью: {}", film.getDuration());
             throw new ValidationException("Продолжительность фильма должна быть положительным числом.");
         }
     }
 
+    private void validatePage(int afterId, int limit) {
+        if (afterId < 0) {
+            throw new ValidationException("Параметр after не может быть отрицательным.");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE + ".");
+        }
+    }
+
     private void validateMpa(Mpa mpa) {
         if (mpa == null || mpa.getId() == null) {
             throw new ValidationException("MPA рейтинг обязателен для фильма.");
@@ -149,14 +392,32 @@ public class FilmService {
     }
 
     private void checkFilmExists(int filmId) {
-        if (filmStorage.getById(filmId).isEmpty()) {
+        if (!filmStorage.exists(filmId)) {
             throw new NotFoundException("Фильм с id=" + filmId + " не найден.");
         }
     }
 
+    private void checkFilmAndUserExist(int filmId, int userId) {
+        parallelChecks.runAll(() -> checkFilmExists(filmId), () -> checkUserExists(userId));
+    }
+
     private void checkUserExists(int userId) {
-        if (userStorage.getById(userId).isEmpty()) {
+        if (!userStorage.exists(userId)) {
             throw new NotFoundException("Пользователь с id=" + userId + " не найден.");
         }
     }
-}
\ No newline at end of file
+
+    private boolean withLikeLock(int filmId, int userId, BooleanSupplier write) {
+        ReentrantLock lock = likeLocks[likeStripe(filmId, userId)];
+        lock.lock();
+        try {
+            return write.getAsBoolean();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int likeStripe(int filmId, int userId) {
+        return Math.floorMod(31 * filmId + userId, LIKE_LOCK_STRIPES);
+    }
+}
@@ -4,28 +4,27 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class GenreService {
-    private final GenreDbStorage genreDbStorage;
+    private final ReferenceDataRegistry referenceData;
 
     public List<Genre> getAllGenres() {
-        return genreDbStorage.getAllGenres();
+        return referenceData.getAllGenres();
     }
 
     public Genre getGenreById(int id) {
-        return genreDbStorage.getGenreById(id)
+        return referenceData.getGenreById(id)
                 .orElseThrow(() -> new NotFoundException("Жанр с id=" + id + " не найден."));
     }
 
     // Метод для получения жанров по списку ID
     public List<Genre> getGenresByIds(Set<Integer> ids) {
-        return genreDbStorage.getGenresByIds(ids);
+        return referenceData.getGenresByIds(ids);
     }
 }
\ No newline at end of file
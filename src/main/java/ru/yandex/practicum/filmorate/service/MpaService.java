@@ -4,21 +4,21 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
 
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class MpaService {
-    private final MpaDbStorage mpaDbStorage;
+    private final ReferenceDataRegistry referenceData;
 
     public List<Mpa> getAllMpa() {
-        return mpaDbStorage.getAllMpa();
+        return referenceData.getAllMpa();
     }
 
     public Mpa getMpaById(int id) {
-        return mpaDbStorage.getMpaById(id)
+        return referenceData.getMpaById(id)
                 .orElseThrow(() -> new NotFoundException("Рейтинг MPA с id=" + id + " не найден."));
     }
 }
\ No newline at end of file
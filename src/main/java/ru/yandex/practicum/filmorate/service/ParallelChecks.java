@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.StatementStats;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Независимые проверки сервиса перед записью. В режиме виртуальных потоков (spring.threads.virtual.enabled)
+// все проверки, кроме первой, уходят в отдельные виртуальные потоки, и запрос ждет самую медленную
+// вместо суммы. Иначе проверки выполняются по очереди в потоке запроса.
+// Ошибка выбрасывается от первой по порядку упавшей проверки, как при последовательном выполнении.
+// Запросы к базе из параллельных проверок учитываются в StatementStats запроса
+@Component
+@Slf4j
+public class ParallelChecks {
+    private final ExecutorService executor;
+
+    public ParallelChecks(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.executor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        log.info("Проверки сервисов выполняются {}", virtualThreads ? "параллельно" : "последовательно");
+    }
+
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    public void runAll(Runnable... checks) {
+        if (executor == null || checks.length < 2) {
+            for (Runnable check : checks) {
+                check.run();
+            }
+            return;
+        }
+        Future<?>[] futures = new Future<?>[checks.length];
+        for (int i = 1; i < checks.length; i++) {
+            futures[i] = executor.submit(StatementStats.propagate(checks[i]));
+        }
+        RuntimeException failure = null;
+        try {
+            checks[0].run();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (int i = 1; i < futures.length; i++) {
+            if (failure != null) {
+                // Без прерывания: прерванный посреди запроса поток может оставить JDBC-соединение
+                // в неопределенном состоянии, начатая проверка просто доработает
+                futures[i].cancel(false);
+                continue;
+            }
+            try {
+                futures[i].get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    failure = cause;
+                } else if (e.getCause() instanceof Error error) {
+                    throw error;
+                } else {
+                    failure = new IllegalStateException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new IllegalStateException("Ожидание проверок прервано.", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -5,21 +5,38 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FriendshipIndex;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 @Slf4j
 public class UserService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_COMMON_FRIENDS_USERS = 100;
+    private static final int MAX_RECOMMENDATIONS = 100;
+    private static final int FRIENDSHIP_LOCK_STRIPES = 64;
+
     private final UserStorage userStorage;
+    private final FriendshipIndex friendshipIndex;
+    // Запись дружбы в хранилище и в индекс идет под блокировкой пары, чтобы одновременные изменения
+    // одной пары попадали в базу и в индекс в одном порядке. ReentrantLock, а не synchronized:
+    // виртуальный поток, ждущий базу под synchronized, занимал бы поток-носитель
+    private final ReentrantLock[] friendshipLocks = new ReentrantLock[FRIENDSHIP_LOCK_STRIPES];
 
     @Autowired
-    public UserService(UserStorage userStorage) {
+    public UserService(UserStorage userStorage, FriendshipIndex friendshipIndex) {
         this.userStorage = userStorage;
+        this.friendshipIndex = friendshipIndex;
+        for (int i = 0; i < friendshipLocks.length; i++) {
+            friendshipLocks[i] = new ReentrantLock();
+        }
     }
 
     public User create(User user) {
@@ -35,9 +52,7 @@ public class UserService {
     public User update(User user) {
         validateUser(user);
 
-        if (userStorage.getById(user.getId()).isEmpty()) {
-            throw new NotFoundException("Пользователь с id=" + user.getId() + " не найден.");
-        }
+        checkUserExists(user.getId());
 
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
@@ -52,6 +67,14 @@ public class UserService {
         return userStorage.getAll();
     }
 
+    public CursorPage<User> getPage(int afterId, int limit) {
+        validatePage(afterId, limit);
+        log.debug("Получен запрос на получение {} пользователей после id={}", limit, afterId);
+        List<User> users = userStorage.getPage(afterId, limit);
+        Integer nextCursor = users.size() == limit ? users.get(users.size() - 1).getId() : null;
+        return new CursorPage<>(users, nextCursor);
+    }
+
     public User getById(int id) {
         log.debug("Получен запрос на получение пользователя с id={}", id);
         return userStorage.getById(id)
@@ -59,37 +82,63 @@ public class UserService {
     }
 
     public void addFriend(int userId, int friendId) {
-        checkUserExists(userId);
-        checkUserExists(friendId);
-        userStorage.addFriend(userId, friendId, FriendshipStatus.PENDING);
+        checkUsersExist(userId, friendId);
+        withFriendshipLock(userId, friendId, () -> {
+            userStorage.addFriend(userId, friendId, FriendshipStatus.PENDING);
+            friendshipIndex.addFriend(userId, friendId, FriendshipStatus.PENDING);
+        });
         log.info("Пользователь с id={} отправил запрос на дружбу пользователю с id={}", userId, friendId);
     }
 
     public void confirmFriend(int userId, int friendId) {
-        checkUserExists(userId);
-        checkUserExists(friendId);
-        userStorage.confirmFriend(userId, friendId);
+        checkUsersExist(userId, friendId);
+        withFriendshipLock(userId, friendId, () -> {
+            userStorage.confirmFriend(userId, friendId);
+            friendshipIndex.confirmFriend(userId, friendId);
+        });
         log.info("Пользователь с id={} подтвердил дружбу с пользователем id={}", userId, friendId);
     }
 
     public void removeFriend(int userId, int friendId) {
-        checkUserExists(userId);
-        checkUserExists(friendId);
-        userStorage.removeFriend(userId, friendId);
+        checkUsersExist(userId, friendId);
+        withFriendshipLock(userId, friendId, () -> {
+            userStorage.removeFriend(userId, friendId);
+            friendshipIndex.removeFriend(userId, friendId);
+        });
         log.info("Пользователь с id={} удалил из друзей пользователя с id={}", userId, friendId);
     }
 
     public List<User> getFriends(int userId) {
         checkUserExists(userId);
         log.debug("Получен запрос на получение друзей пользователя с id={}", userId);
-        return userStorage.getFriends(userId);
+        // Id друзей берем из графа в памяти, из хранилища загружаем только самих пользователей
+        return userStorage.getByIds(friendshipIndex.getFriendIds(userId));
     }
 
     public List<User> getCommonFriends(int userId, int otherId) {
-        checkUserExists(userId);
-        checkUserExists(otherId);
+        checkUsersExist(userId, otherId);
         log.debug("Получен запрос на получение общих друзей пользователей с id={} и id={}", userId, otherId);
-        return userStorage.getCommonFriends(userId, otherId);
+        return userStorage.getByIds(friendshipIndex.getCommonFriendIds(userId, otherId));
+    }
+
+    public List<User> getCommonFriends(List<Integer> userIds) {
+        if (userIds == null || userIds.size() < 2 || userIds.size() > MAX_COMMON_FRIENDS_USERS) {
+            throw new ValidationException("Параметр ids должен содержать от 2 до " +
+                    MAX_COMMON_FRIENDS_USERS + " id пользователей.");
+        }
+        int[] ids = userIds.stream().mapToInt(Integer::intValue).toArray();
+        checkUsersExist(ids);
+        log.debug("Получен запрос на получение общих друзей пользователей с id={}", userIds);
+        return userStorage.getByIds(friendshipIndex.getCommonFriendIds(ids));
+    }
+
+    public List<User> getRecommendations(int userId, int limit) {
+        if (limit < 1 || limit > MAX_RECOMMENDATIONS) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_RECOMMENDATIONS + ".");
+        }
+        checkUserExists(userId);
+        log.debug("Получен запрос на рекомендации друзей для пользователя с id={}", userId);
+        return userStorage.getByIds(friendshipIndex.getRecommendedIds(userId, limit));
     }
 
     private void validateUser(User user) {
@@ -107,9 +156,40 @@ public class UserService {
         }
     }
 
+    private void validatePage(int afterId, int limit) {
+        if (afterId < 0) {
+            throw new ValidationException("Параметр after не может быть отрицательным.");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE + ".");
+        }
+    }
+
     private void checkUserExists(int userId) {
-        if (userStorage.getById(userId).isEmpty()) {
+        if (!userStorage.exists(userId)) {
             throw new NotFoundException("Пользователь с id=" + userId + " не найден.");
         }
     }
-}
\ No newline at end of file
+
+    // Один запрос на всех; поштучно проверяем только при ошибке, чтобы назвать отсутствующий id
+    private void checkUsersExist(int... userIds) {
+        if (!userStorage.existsAll(userIds)) {
+            for (int userId : userIds) {
+                checkUserExists(userId);
+            }
+        }
+    }
+
+    // Пара неупорядоченная: (a, b) и (b, a) попадают под одну блокировку
+    private void withFriendshipLock(int userId, int friendId, Runnable write) {
+        int low = Math.min(userId, friendId);
+        int high = Math.max(userId, friendId);
+        ReentrantLock lock = friendshipLocks[Math.floorMod(31 * low + high, FRIENDSHIP_LOCK_STRIPES)];
+        lock.lock();
+        try {
+            write.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Кэширует getById поверх FilmDbStorage; запись сбрасывается при изменении фильма
+@Repository
+@Primary
+public class CachingFilmStorage implements FilmStorage {
+    private final FilmStorage delegate;
+    private final EntityCache<Film> cache;
+
+    @Autowired
+    public CachingFilmStorage(FilmDbStorage delegate,
+                              @Value("${filmorate.cache.films.max-size:10000}") int maxSize,
+                              MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = new EntityCache<>(maxSize, CachingFilmStorage::copy);
+        cache.bindTo(meterRegistry, "films");
+    }
+
+    public EntityCache<Film> getCache() {
+        return cache;
+    }
+
+    @Override
+    public Film create(Film film) {
+        return delegate.create(film);
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        return delegate.createAll(films);
+    }
+
+    @Override
+    public Film update(Film film) {
+        Film updated = delegate.update(film);
+        cache.invalidate(film.getId());
+        return updated;
+    }
+
+    @Override
+    public List<Film> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public void forEachChunk(int chunkSize, Consumer<List<Film>> action) {
+        delegate.forEachChunk(chunkSize, action);
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        return delegate.getPage(afterId, limit);
+    }
+
+    @Override
+    public Optional<Film> getById(int id) {
+        return cache.get(id, delegate::getById);
+    }
+
+    @Override
+    public boolean exists(int id) {
+        return cache.contains(id) || delegate.exists(id);
+    }
+
+    // Закэшированные id заведомо существуют, в базу уходят только остальные
+    @Override
+    public boolean existsAll(int... ids) {
+        return delegate.existsAll(Arrays.stream(ids).filter(id -> !cache.contains(id)).toArray());
+    }
+
+    @Override
+    public Set<Integer> getExistingIds(Collection<Integer> ids) {
+        Set<Integer> existing = new HashSet<>();
+        List<Integer> unknown = new ArrayList<>();
+        for (Integer id : ids) {
+            if (cache.contains(id)) {
+                existing.add(id);
+            } else {
+                unknown.add(id);
+            }
+        }
+        existing.addAll(delegate.getExistingIds(unknown));
+        return existing;
+    }
+
+    @Override
+    public List<Film> getByIds(List<Integer> ids) {
+        return delegate.getByIds(ids);
+    }
+
+    // Лайки не входят в модель Film, поэтому кэш не затрагивают
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        return delegate.addLike(filmId, userId);
+    }
+
+    @Override
+    public boolean[] addLikes(List<FilmLike> likes) {
+        return delegate.addLikes(likes);
+    }
+
+    @Override
+    public boolean[] removeLikes(List<FilmLike> likes) {
+        return delegate.removeLikes(likes);
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        return delegate.removeLike(filmId, userId);
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        return delegate.getPopularFilms(count);
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikesCounts() {
+        return delegate.getLikesCounts();
+    }
+
+    @Override
+    public void forEachLike(LikeVisitor visitor) {
+        delegate.forEachLike(visitor);
+    }
+
+    // Копия фильма вместе с MPA и жанрами: модель изменяемая
+    static Film copy(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        Mpa mpa = film.getMpa();
+        copy.setMpa(mpa == null ? null : new Mpa(mpa.getId(), mpa.getName(), mpa.getDescription()));
+        if (film.getGenres() != null) {
+            List<Genre> genres = new ArrayList<>(film.getGenres().size());
+            for (Genre genre : film.getGenres()) {
+                genres.add(genre == null ? null : new Genre(genre.getId(), genre.getName()));
+            }
+            copy.setGenres(genres);
+        }
+        return copy;
+    }
+}
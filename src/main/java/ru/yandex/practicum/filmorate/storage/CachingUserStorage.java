@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Кэширует getById поверх UserDbStorage; запись сбрасывается при изменении пользователя или его дружбы
+@Repository
+@Primary
+public class CachingUserStorage implements UserStorage {
+    private final UserStorage delegate;
+    private final EntityCache<User> cache;
+
+    @Autowired
+    public CachingUserStorage(UserDbStorage delegate,
+                              @Value("${filmorate.cache.users.max-size:10000}") int maxSize,
+                              MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = new EntityCache<>(maxSize, CachingUserStorage::copy);
+        cache.bindTo(meterRegistry, "users");
+    }
+
+    public EntityCache<User> getCache() {
+        return cache;
+    }
+
+    @Override
+    public User create(User user) {
+        return delegate.create(user);
+    }
+
+    @Override
+    public User update(User user) {
+        User updated = delegate.update(user);
+        cache.invalidate(user.getId());
+        return updated;
+    }
+
+    @Override
+    public List<User> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        return delegate.getPage(afterId, limit);
+    }
+
+    @Override
+    public Optional<User> getById(int id) {
+        return cache.get(id, delegate::getById);
+    }
+
+    @Override
+    public boolean exists(int id) {
+        return cache.contains(id) || delegate.exists(id);
+    }
+
+    // Закэшированные id заведомо существуют, в базу уходят только остальные
+    @Override
+    public boolean existsAll(int... ids) {
+        return delegate.existsAll(Arrays.stream(ids).filter(id -> !cache.contains(id)).toArray());
+    }
+
+    @Override
+    public Set<Integer> getExistingIds(Collection<Integer> ids) {
+        Set<Integer> existing = new HashSet<>();
+        List<Integer> unknown = new ArrayList<>();
+        for (Integer id : ids) {
+            if (cache.contains(id)) {
+                existing.add(id);
+            } else {
+                unknown.add(id);
+            }
+        }
+        existing.addAll(delegate.getExistingIds(unknown));
+        return existing;
+    }
+
+    @Override
+    public List<User> getByIds(List<Integer> ids) {
+        return delegate.getByIds(ids);
+    }
+
+    // Заявка меняет только карту друзей отправителя
+    @Override
+    public void addFriend(int userId, int friendId, FriendshipStatus status) {
+        delegate.addFriend(userId, friendId, status);
+        cache.invalidate(userId);
+    }
+
+    @Override
+    public void confirmFriend(int userId, int friendId) {
+        delegate.confirmFriend(userId, friendId);
+        cache.invalidate(userId);
+        cache.invalidate(friendId);
+    }
+
+    @Override
+    public void removeFriend(int userId, int friendId) {
+        delegate.removeFriend(userId, friendId);
+        cache.invalidate(userId);
+        cache.invalidate(friendId);
+    }
+
+    @Override
+    public List<User> getFriends(int userId) {
+        return delegate.getFriends(userId);
+    }
+
+    @Override
+    public List<User> getCommonFriends(int userId, int otherId) {
+        return delegate.getCommonFriends(userId, otherId);
+    }
+
+    @Override
+    public void forEachFriendship(FriendshipVisitor visitor) {
+        delegate.forEachFriendship(visitor);
+    }
+
+    // Копия пользователя вместе с картой друзей: модель изменяемая
+    static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        copy.setFriends(user.getFriends() == null ? null : new HashMap<>(user.getFriends()));
+        return copy;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Потокобезопасная битовая карта неотрицательных int id без блокировок.
+// Биты разбиты на страницы по 65536, страница создается при первой записи в нее
+public class ConcurrentIdBitmap {
+    private static final int PAGE_BITS = 16;
+    private static final int WORDS_PER_PAGE = (1 << PAGE_BITS) / Long.SIZE;
+    private static final int PAGES = 1 << (Integer.SIZE - 1 - PAGE_BITS);
+
+    private final AtomicReferenceArray<AtomicLongArray> pages = new AtomicReferenceArray<>(PAGES);
+
+    public void set(int id) {
+        checkId(id);
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+        if (page == null) {
+            pages.compareAndSet(id >>> PAGE_BITS, null, new AtomicLongArray(WORDS_PER_PAGE));
+            page = pages.get(id >>> PAGE_BITS);
+        }
+        int word = wordIndex(id);
+        long mask = 1L << id;
+        long current;
+        do {
+            current = page.get(word);
+        } while ((current & mask) == 0 && !page.compareAndSet(word, current, current | mask));
+    }
+
+    public void clear(int id) {
+        checkId(id);
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+        if (page == null) {
+            return;
+        }
+        int word = wordIndex(id);
+        long mask = 1L << id;
+        long current;
+        do {
+            current = page.get(word);
+        } while ((current & mask) != 0 && !page.compareAndSet(word, current, current & ~mask));
+    }
+
+    public boolean get(int id) {
+        if (id < 0) {
+            return false;
+        }
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+        return page != null && (page.get(wordIndex(id)) & (1L << id)) != 0;
+    }
+
+    private static int wordIndex(int id) {
+        return (id & ((1 << PAGE_BITS) - 1)) >>> 6;
+    }
+
+    private static void checkId(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("id не может быть отрицательным: " + id);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+// Ограниченный по размеру LRU-кэш сущностей по id со счетчиками попаданий, промахов и вытеснений.
+// Изменяемые сущности кэшируются копией и выдаются копией (copier), чтобы вызывающий, поменяв
+// полученный объект, не изменил закэшированный мимо инвалидации
+public class EntityCache<V> {
+    private final int maxSize;
+    private final UnaryOperator<V> copier;
+    private final Map<Integer, V> entries;
+    // Растет при каждой инвалидации: значение, загруженное до нее, в кэш уже не кладется
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Для неизменяемых значений
+    public EntityCache(int maxSize) {
+        this(maxSize, UnaryOperator.identity());
+    }
+
+    public EntityCache(int maxSize, UnaryOperator<V> copier) {
+        this.maxSize = maxSize;
+        this.copier = copier;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<V> get(int id, IntFunction<Optional<V>> loader) {
+        synchronized (entries) {
+            V cached = entries.get(id);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(copier.apply(cached));
+            }
+        }
+        misses.increment();
+        long stamp = invalidations.get();
+        Optional<V> loaded = loader.apply(id);
+        if (loaded.isPresent() && maxSize > 0) {
+            synchronized (entries) {
+                if (stamp == invalidations.get()) {
+                    entries.put(id, copier.apply(loaded.get()));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    // Проверка наличия без учета в счетчиках и без изменения порядка вытеснения
+    public boolean contains(int id) {
+        synchronized (entries) {
+            return entries.containsKey(id);
+        }
+    }
+
+    public void invalidate(int id) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Метрики по соглашениям Micrometer для кэшей: cache.gets{result}, cache.evictions, cache.size
+    public void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder("cache.gets", this, EntityCache::getHits)
+                .tag("cache", name).tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", this, EntityCache::getMisses)
+                .tag("cache", name).tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", this, EntityCache::getEvictions)
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("cache.size", this, EntityCache::size)
+                .tag("cache", name)
+                .register(registry);
+    }
+}
@@ -2,41 +2,41 @@ package ru.yandex.practicum.filmorate.storage;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
-@Primary
 @RequiredArgsConstructor
 @Slf4j
 public class FilmDbStorage implements FilmStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataRegistry referenceData;
+    private final StatementRegistry statements;
 
     @Override
+    @Transactional
     public Film create(Film film) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("films")
-                .usingGeneratedKeyColumns("film_id");
-
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("name", film.getName());
-        parameters.put("description", film.getDescription());
-        parameters.put("release_date", film.getReleaseDate());
-        parameters.put("duration", film.getDuration());
-        parameters.put("mpa_rating_id", film.getMpa().getId());
-
-        Number key = simpleJdbcInsert.executeAndReturnKey(parameters);
-        film.setId(key.intValue());
+        film.setId(statements.insert(SqlStatement.INSERT_FILM,
+                film.getName(),
+                film.getDescription(),
+                film.getReleaseDate(),
+                film.getDuration(),
+                film.getMpa().getId()));
 
         // Сохраняем жанры (удаляем дубликаты)
         saveFilmGenres(film);
@@ -46,9 +46,42 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        SqlStatement insert = SqlStatement.INSERT_FILM;
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(insert.getSql(), insert.getKeyColumns())) {
+                for (Film film : films) {
+                    ps.setString(1, film.getName());
+                    ps.setString(2, film.getDescription());
+                    ps.setObject(3, film.getReleaseDate());
+                    ps.setObject(4, film.getDuration());
+                    ps.setInt(5, film.getMpa().getId());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                // Ключи возвращаются в порядке строк пачки
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next()) {
+                        films.get(i++).setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+        insertFilmGenres(films);
+        log.info("Пачкой создано {} фильмов", films.size());
+        return films;
+    }
+
+    @Override
+    @Transactional
     public Film update(Film film) {
-        String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_rating_id = ? WHERE film_id = ?";
-        jdbcTemplate.update(sql,
+        statements.update(SqlStatement.UPDATE_FILM,
                 film.getName(),
                 film.getDescription(),
                 film.getReleaseDate(),
@@ -65,47 +98,205 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public List<Film> getAll() {
-        String sql = "SELECT f.*, m.name as mpa_name, m.description as mpa_description " +
-                "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_rating_id = m.mpa_rating_id";
-        return jdbcTemplate.query(sql, this::mapRowToFilm);
+        String sql = "SELECT f.* FROM films f";
+        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm);
+        loadFilmGenres(films);
+        return films;
+    }
+
+    @Override
+    public void forEachChunk(int chunkSize, Consumer<List<Film>> action) {
+        // Страницы по ключу вместо открытого курсора: соединение возвращается в пул после каждой порции,
+        // поэтому медленный получатель не держит соединение всю выгрузку
+        int afterId = 0;
+        List<Film> chunk;
+        do {
+            chunk = getPage(afterId, chunkSize);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
+            action.accept(chunk);
+        } while (chunk.size() == chunkSize);
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        String sql = "SELECT f.* FROM films f " +
+                "WHERE f.film_id > ? " +
+                "ORDER BY f.film_id " +
+                "LIMIT ?";
+        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, afterId, limit);
+        loadFilmGenres(films);
+        return films;
     }
 
     @Override
     public Optional<Film> getById(int id) {
-        String sql = "SELECT f.*, m.name as mpa_name, m.description as mpa_description " +
-                "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_rating_id = m.mpa_rating_id " +
+        String sql = "SELECT f.* FROM films f " +
                 "WHERE f.film_id = ?";
         List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, id);
+        loadFilmGenres(films);
         return films.stream().findFirst();
     }
 
     @Override
-    public void addLike(int filmId, int userId) {
-        String sql = "MERGE INTO likes (film_id, user_id) KEY (film_id, user_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, filmId, userId);
+    public boolean exists(int id) {
+        String sql = "SELECT 1 FROM films WHERE film_id = ? LIMIT 1";
+        return Boolean.TRUE.equals(jdbcTemplate.query(sql, (ResultSetExtractor<Boolean>) ResultSet::next, id));
+    }
+
+    @Override
+    public boolean existsAll(int... ids) {
+        Object[] uniqueIds = Arrays.stream(ids).distinct().boxed().toArray();
+        if (uniqueIds.length == 0) {
+            return true;
+        }
+        String sql = "SELECT COUNT(*) FROM films WHERE film_id IN (" +
+                String.join(",", Collections.nCopies(uniqueIds.length, "?")) +
+                ")";
+        Integer found = jdbcTemplate.queryForObject(sql, Integer.class, uniqueIds);
+        return found != null && found == uniqueIds.length;
+    }
+
+    @Override
+    public Set<Integer> getExistingIds(Collection<Integer> ids) {
+        Object[] uniqueIds = ids.stream().distinct().toArray();
+        if (uniqueIds.length == 0) {
+            return new HashSet<>();
+        }
+        String sql = "SELECT film_id FROM films WHERE film_id IN (" +
+                String.join(",", Collections.nCopies(uniqueIds.length, "?")) +
+                ")";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Integer.class, uniqueIds));
+    }
+
+    @Override
+    public List<Film> getByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String sql = "SELECT f.* FROM films f " +
+                "WHERE f.film_id IN (" +
+                String.join(",", Collections.nCopies(ids.size(), "?")) +
+                ")";
+        Map<Integer, Film> filmsById = new HashMap<>();
+        jdbcTemplate.query(sql, this::mapRowToFilm, ids.toArray())
+                .forEach(film -> filmsById.put(film.getId(), film));
+
+        // Возвращаем фильмы в порядке запрошенных id
+        List<Film> films = ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        loadFilmGenres(films);
+        return films;
+    }
+
+    @Override
+    @Transactional
+    public boolean addLike(int filmId, int userId) {
+        boolean added = statements.update(SqlStatement.MERGE_LIKE, filmId, userId) > 0;
+        if (added) {
+            statements.update(SqlStatement.ADD_LIKES_COUNT, 1, filmId);
+        }
         log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
+        return added;
     }
 
     @Override
-    public void removeLike(int filmId, int userId) {
-        String sql = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+    @Transactional
+    public boolean[] addLikes(List<FilmLike> likes) {
+        boolean[] added = new boolean[likes.size()];
+        if (likes.isEmpty()) {
+            return added;
+        }
+        int[] counts = statements.batchUpdate(SqlStatement.MERGE_LIKE, likeRows(likes));
+        for (int i = 0; i < counts.length; i++) {
+            added[i] = counts[i] > 0;
+        }
+        int changed = applyLikesCountDeltas(likes, added, 1);
+        log.info("Пачкой добавлено {} лайков из {}", changed, likes.size());
+        return added;
+    }
+
+    @Override
+    @Transactional
+    public boolean[] removeLikes(List<FilmLike> likes) {
+        boolean[] removed = new boolean[likes.size()];
+        if (likes.isEmpty()) {
+            return removed;
+        }
+        int[] counts = statements.batchUpdate(SqlStatement.DELETE_LIKE, likeRows(likes));
+        for (int i = 0; i < counts.length; i++) {
+            removed[i] = counts[i] > 0;
+        }
+        int changed = applyLikesCountDeltas(likes, removed, -1);
+        log.info("Пачкой удалено {} лайков из {}", changed, likes.size());
+        return removed;
+    }
+
+    // Счетчики лайков обновляем одной пачкой: одна строка на фильм с суммой изменений
+    private int applyLikesCountDeltas(List<FilmLike> likes, boolean[] changed, int sign) {
+        Map<Integer, Integer> deltas = new HashMap<>();
+        int total = 0;
+        for (int i = 0; i < changed.length; i++) {
+            if (changed[i]) {
+                deltas.merge(likes.get(i).getFilmId(), sign, Integer::sum);
+                total++;
+            }
+        }
+        List<Object[]> updates = deltas.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .collect(Collectors.toList());
+        statements.batchUpdate(SqlStatement.ADD_LIKES_COUNT, updates);
+        return total;
+    }
+
+    private static List<Object[]> likeRows(List<FilmLike> likes) {
+        return likes.stream()
+                .map(like -> new Object[]{like.getFilmId(), like.getUserId()})
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public boolean removeLike(int filmId, int userId) {
+        boolean removed = statements.update(SqlStatement.DELETE_LIKE, filmId, userId) > 0;
+        if (removed) {
+            statements.update(SqlStatement.ADD_LIKES_COUNT, -1, filmId);
+        }
         log.info("Пользователь {} удалил лайк с фильма {}", userId, filmId);
+        return removed;
     }
 
     @Override
     public List<Film> getPopularFilms(int count) {
-        String sql = "SELECT f.*, m.name as mpa_name, m.description as mpa_description, " +
-                "COUNT(l.user_id) as likes_count " +
+        // Счетчик поддерживается в addLike/removeLike, сортировка идет по индексу idx_films_likes_count
+        String sql = "SELECT f.* FROM films f " +
+                "ORDER BY f.likes_count DESC, f.film_id " +
+                "LIMIT ?";
+        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, count);
+        loadFilmGenres(films);
+        return films;
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikesCounts() {
+        String sql = "SELECT f.film_id, COUNT(l.user_id) AS likes_count " +
                 "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_rating_id = m.mpa_rating_id " +
                 "LEFT JOIN likes l ON f.film_id = l.film_id " +
-                "GROUP BY f.film_id, m.mpa_rating_id " +
-                "ORDER BY likes_count DESC " +
-                "LIMIT ?";
-        return jdbcTemplate.query(sql, this::mapRowToFilm, count);
+                "GROUP BY f.film_id";
+        Map<Integer, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                counts.put(rs.getInt("film_id"), rs.getInt("likes_count")));
+        return counts;
+    }
+
+    @Override
+    public void forEachLike(LikeVisitor visitor) {
+        jdbcTemplate.query("SELECT film_id, user_id FROM likes", (RowCallbackHandler) rs ->
+                visitor.visit(rs.getInt("film_id"), rs.getInt("user_id")));
     }
 
     private Film mapRowToFilm(ResultSet rs, int rowNum) throws SQLException {
@@ -116,61 +307,94 @@ public class FilmDbStorage implements FilmStorage {
         film.setReleaseDate(rs.getDate("release_date").toLocalDate());
         film.setDuration(rs.getInt("duration"));
 
-        // MPA рейтинг - используем конструктор с параметрами
-        Mpa mpa = new Mpa(
-                rs.getInt("mpa_rating_id"),
-                rs.getString("mpa_name"),
-                rs.getString("mpa_description")
-        );
-        film.setMpa(mpa);
+        // MPA рейтинг - общий экземпляр из справочника, без соединения с mpa_ratings
+        int mpaId = rs.getInt("mpa_rating_id");
+        if (!rs.wasNull()) {
+            film.setMpa(referenceData.getMpaById(mpaId).orElseGet(() -> new Mpa(mpaId, null, null)));
+        }
 
-        // Жанры
-        List<Genre> genres = loadFilmGenres(film.getId());
-        film.setGenres(genres);
+        // Жанры загружаются отдельно для всей выборки, см. loadFilmGenres
+        film.setGenres(new ArrayList<>());
 
         return film;
     }
 
-    private List<Genre> loadFilmGenres(int filmId) {
-        String sql = "SELECT g.genre_id, g.name FROM film_genres fg " +
-                "JOIN genres g ON fg.genre_id = g.genre_id " +
-                "WHERE fg.film_id = ? " +
-                "ORDER BY g.genre_id";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            // Используем конструктор с параметрами
-            return new Genre(
-                    rs.getInt("genre_id"),
-                    rs.getString("name")
-            );
-        }, filmId);
+    // Загружаем жанры сразу для всех фильмов выборки одним запросом
+    private void loadFilmGenres(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        Map<Integer, Film> filmsById = new HashMap<>();
+        films.forEach(film -> filmsById.put(film.getId(), film));
+
+        // Названия жанров берем из справочника, из базы читаются только связи
+        String sql = "SELECT film_id, genre_id FROM film_genres " +
+                "WHERE film_id IN (" +
+                String.join(",", Collections.nCopies(filmsById.size(), "?")) +
+                ") ORDER BY film_id, genre_id";
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            int genreId = rs.getInt("genre_id");
+            filmsById.get(rs.getInt("film_id")).getGenres().add(
+                    referenceData.getGenreById(genreId).orElseGet(() -> new Genre(genreId, null)));
+        }, filmsById.keySet().toArray());
     }
 
     private void saveFilmGenres(Film film) {
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            // Удаляем дубликаты по id жанра
-            Map<Integer, Genre> uniqueGenres = film.getGenres().stream()
-                    .collect(Collectors.toMap(
-                            Genre::getId,
-                            genre -> genre,
-                            (existing, replacement) -> existing
-                    ));
-
-            String sql = "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)";
-            uniqueGenres.values().forEach(genre ->
-                    jdbcTemplate.update(sql, film.getId(), genre.getId())
-            );
+        insertFilmGenres(List.of(film));
+    }
 
-            // Обновляем список жанров в объекте film
-            film.setGenres(new ArrayList<>(uniqueGenres.values()));
+    // Жанры всех фильмов одной пачкой insert'ов
+    private void insertFilmGenres(List<Film> films) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Film film : films) {
+            Map<Integer, Genre> uniqueGenres = uniqueGenres(film);
+            uniqueGenres.keySet().forEach(genreId -> rows.add(new Object[]{film.getId(), genreId}));
         }
+        batchInsertFilmGenres(rows);
     }
 
+    // Пишем только разницу между сохраненными и запрошенными жанрами:
+    // обновление без изменения жанров не трогает film_genres
     private void updateFilmGenres(Film film) {
-        // Удаляем старые жанры
-        String deleteSql = "DELETE FROM film_genres WHERE film_id = ?";
-        jdbcTemplate.update(deleteSql, film.getId());
+        Set<Integer> stored = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT genre_id FROM film_genres WHERE film_id = ?", Integer.class, film.getId()));
+        Set<Integer> requested = uniqueGenres(film).keySet();
 
-        // Добавляем новые жанры (с удалением дубликатов)
-        saveFilmGenres(film);
+        List<Integer> removed = stored.stream()
+                .filter(genreId -> !requested.contains(genreId))
+                .collect(Collectors.toList());
+        if (!removed.isEmpty()) {
+            String sql = "DELETE FROM film_genres WHERE film_id = ? AND genre_id IN (" +
+                    String.join(",", Collections.nCopies(removed.size(), "?")) +
+                    ")";
+            List<Object> args = new ArrayList<>();
+            args.add(film.getId());
+            args.addAll(removed);
+            jdbcTemplate.update(sql, args.toArray());
+        }
+
+        batchInsertFilmGenres(requested.stream()
+                .filter(genreId -> !stored.contains(genreId))
+                .map(genreId -> new Object[]{film.getId(), genreId})
+                .collect(Collectors.toList()));
+    }
+
+    // Удаляет дубликаты по id жанра и обновляет список жанров в объекте film
+    private Map<Integer, Genre> uniqueGenres(Film film) {
+        if (film.getGenres() == null || film.getGenres().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, Genre> uniqueGenres = film.getGenres().stream()
+                .collect(Collectors.toMap(
+                        Genre::getId,
+                        genre -> genre,
+                        (existing, replacement) -> existing
+                ));
+        film.setGenres(new ArrayList<>(uniqueGenres.values()));
+        return uniqueGenres;
+    }
+
+    private void batchInsertFilmGenres(List<Object[]> rows) {
+        statements.batchUpdate(SqlStatement.INSERT_FILM_GENRE, rows);
     }
-}
\ No newline at end of file
+}
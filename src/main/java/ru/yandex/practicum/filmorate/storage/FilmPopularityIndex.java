@@ -0,0 +1,304 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+// Рейтинг фильмов по количеству лайков в памяти процесса.
+// Фильмы разложены по корзинам "количество лайков -> id фильмов", корзины упорядочены по убыванию,
+// поэтому топ-N читается за O(N) без сортировки всех фильмов. Изменения одного фильма сериализуются
+// через ConcurrentHashMap.compute, корзины блокируются по отдельности, общей блокировки нет,
+// поэтому чтение топа слабо согласовано с одновременными лайками (см. Ranking.move).
+// Кроме общего рейтинга есть отдельные рейтинги по каждому жанру, году выпуска и MPA: лайк двигает фильм
+// во всех его рейтингах, смена жанров, года или MPA переносит фильм между рейтингами.
+// Запрос с несколькими фильтрами читает самый маленький из подходящих рейтингов и проверяет остальные
+@Component
+@Slf4j
+public class FilmPopularityIndex {
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+    private static final int[] NO_GENRES = new int[0];
+
+    private final FilmStorage filmStorage;
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Ranking all = new Ranking();
+    private final ConcurrentHashMap<Integer, Ranking> byGenre = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Ranking> byYear = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Ranking> byMpa = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FilmPopularityIndex(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        entries.clear();
+        all.clear();
+        byGenre.clear();
+        byYear.clear();
+        byMpa.clear();
+        Map<Integer, Integer> likesCounts = filmStorage.getLikesCounts();
+        filmStorage.forEachChunk(REBUILD_CHUNK_SIZE, films -> films.forEach(film ->
+                add(film.getId(), entry(film, likesCounts.getOrDefault(film.getId(), 0)))));
+        // Фильмы, созданные между двумя запросами, попадают хотя бы в общий рейтинг
+        likesCounts.forEach((filmId, likes) -> add(filmId, new Entry(likes, 0, 0, NO_GENRES)));
+        log.info("Рейтинг популярности построен для {} фильмов", likesCounts.size());
+    }
+
+    public void addFilm(Film film) {
+        add(film.getId(), entry(film, 0));
+    }
+
+    // Жанры, год или MPA фильма изменились: фильм переносится между рейтингами с прежним числом лайков
+    public void updateFilm(Film film) {
+        entries.compute(film.getId(), (id, entry) -> {
+            Entry updated = entry(film, entry == null ? 0 : entry.likes());
+            List<Ranking> before = entry == null ? List.of() : rankings(entry);
+            List<Ranking> after = rankings(updated);
+            for (Ranking ranking : after) {
+                if (!before.contains(ranking)) {
+                    ranking.add(id, updated.likes());
+                }
+            }
+            for (Ranking ranking : before) {
+                if (!after.contains(ranking)) {
+                    ranking.remove(id, updated.likes());
+                }
+            }
+            return updated;
+        });
+    }
+
+    public void addLike(int filmId) {
+        move(filmId, 1);
+    }
+
+    public void removeLike(int filmId) {
+        move(filmId, -1);
+    }
+
+    // Id самых популярных фильмов: по убыванию лайков, при равенстве по возрастанию id
+    public List<Integer> getTopFilmIds(int count) {
+        Set<Integer> result = new LinkedHashSet<>();
+        all.collect(result, count, null);
+        return new ArrayList<>(result);
+    }
+
+    // То же среди фильмов с жанром genreId, выпущенных в year и с рейтингом mpaId; null - без фильтра
+    public List<Integer> getTopFilmIds(int count, Integer genreId, Integer year, Integer mpaId) {
+        if (genreId == null && year == null && mpaId == null) {
+            return getTopFilmIds(count);
+        }
+        List<Ranking> candidates = new ArrayList<>();
+        if (genreId != null) {
+            candidates.add(byGenre.get(genreId));
+        }
+        if (year != null) {
+            candidates.add(byYear.get(year));
+        }
+        if (mpaId != null) {
+            candidates.add(byMpa.get(mpaId));
+        }
+        if (candidates.contains(null)) {
+            return List.of();
+        }
+        Ranking smallest = Collections.min(candidates, Comparator.comparingInt(Ranking::size));
+        Set<Integer> result = new LinkedHashSet<>();
+        smallest.collect(result, count, filmId -> {
+            Entry entry = entries.get(filmId);
+            return entry != null && entry.matches(genreId, year, mpaId);
+        });
+        return new ArrayList<>(result);
+    }
+
+    public int getLikesCount(int filmId) {
+        Entry entry = entries.get(filmId);
+        return entry == null ? 0 : entry.likes();
+    }
+
+    private void add(int filmId, Entry entry) {
+        entries.computeIfAbsent(filmId, id -> {
+            rankings(entry).forEach(ranking -> ranking.add(id, entry.likes()));
+            return entry;
+        });
+    }
+
+    private void move(int filmId, int delta) {
+        entries.compute(filmId, (id, entry) -> {
+            if (entry == null) {
+                Entry created = new Entry(Math.max(delta, 0), 0, 0, NO_GENRES);
+                all.add(id, created.likes());
+                return created;
+            }
+            int updated = Math.max(entry.likes() + delta, 0);
+            if (updated != entry.likes()) {
+                rankings(entry).forEach(ranking -> ranking.move(id, entry.likes(), updated));
+            }
+            return entry.withLikes(updated);
+        });
+    }
+
+    // Рейтинги, в которых состоит фильм; недостающие создаются
+    private List<Ranking> rankings(Entry entry) {
+        List<Ranking> result = new ArrayList<>(entry.genreIds().length + 3);
+        result.add(all);
+        for (int genreId : entry.genreIds()) {
+            result.add(byGenre.computeIfAbsent(genreId, k -> new Ranking()));
+        }
+        if (entry.year() != 0) {
+            result.add(byYear.computeIfAbsent(entry.year(), k -> new Ranking()));
+        }
+        if (entry.mpaId() != 0) {
+            result.add(byMpa.computeIfAbsent(entry.mpaId(), k -> new Ranking()));
+        }
+        return result;
+    }
+
+    private static Entry entry(Film film, int likes) {
+        int[] genreIds = film.getGenres() == null ? NO_GENRES : film.getGenres().stream()
+                .filter(Objects::nonNull)
+                .map(Genre::getId)
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .distinct()
+                .toArray();
+        int year = film.getReleaseDate() == null ? 0 : film.getReleaseDate().getYear();
+        int mpaId = film.getMpa() == null || film.getMpa().getId() == null ? 0 : film.getMpa().getId();
+        return new Entry(likes, year, mpaId, genreIds);
+    }
+
+    // Лайки и атрибуты фильма для фильтров; 0 - год или MPA неизвестны
+    private record Entry(int likes, int year, int mpaId, int[] genreIds) {
+        Entry withLikes(int updated) {
+            return new Entry(updated, year, mpaId, genreIds);
+        }
+
+        boolean matches(Integer genreId, Integer year, Integer mpaId) {
+            if (year != null && year != this.year || mpaId != null && mpaId != this.mpaId) {
+                return false;
+            }
+            if (genreId == null) {
+                return true;
+            }
+            for (int id : genreIds) {
+                if (id == genreId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // Корзины одного рейтинга и число фильмов в нем
+    private static final class Ranking {
+        private final ConcurrentNavigableMap<Integer, Bucket> buckets =
+                new ConcurrentSkipListMap<>(Collections.reverseOrder());
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(int filmId, int likes) {
+            place(filmId, likes);
+            size.incrementAndGet();
+        }
+
+        void remove(int filmId, int likes) {
+            displace(filmId, likes);
+            size.decrementAndGet();
+        }
+
+        // Сначала добавляем в новую корзину, потом убираем из старой: повтор при чтении отсеивает collect,
+        // при движении вниз фильм не теряется. При движении вверх читатель, уже прошедший новую корзину,
+        // не застанет фильм и в старой: чтение слабо согласовано, и топ на время одного лайка может
+        // пропустить фильм, который в нем должен быть
+        void move(int filmId, int from, int to) {
+            place(filmId, to);
+            displace(filmId, from);
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        void clear() {
+            buckets.clear();
+            size.set(0);
+        }
+
+        void collect(Set<Integer> result, int count, IntPredicate filter) {
+            for (Bucket bucket : buckets.values()) {
+                if (result.size() >= count) {
+                    break;
+                }
+                bucket.collect(result, count, filter);
+            }
+        }
+
+        private void place(int filmId, int likes) {
+            while (true) {
+                Bucket bucket = buckets.computeIfAbsent(likes, k -> new Bucket());
+                if (bucket.add(filmId)) {
+                    return;
+                }
+            }
+        }
+
+        private void displace(int filmId, int likes) {
+            Bucket bucket = buckets.get(likes);
+            if (bucket != null && bucket.removeAndCheckEmpty(filmId)) {
+                buckets.remove(likes, bucket);
+            }
+        }
+    }
+
+    // Корзина фильмов с одинаковым количеством лайков. Опустевшая корзина помечается удаленной,
+    // и запоздавший писатель создает новую вместо того, чтобы писать в отсоединенную
+    private static final class Bucket {
+        private final TreeSet<Integer> filmIds = new TreeSet<>();
+        private boolean removed;
+
+        synchronized boolean add(int filmId) {
+            if (removed) {
+                return false;
+            }
+            filmIds.add(filmId);
+            return true;
+        }
+
+        synchronized boolean removeAndCheckEmpty(int filmId) {
+            filmIds.remove(filmId);
+            if (filmIds.isEmpty()) {
+                removed = true;
+            }
+            return removed;
+        }
+
+        // filter == null - без фильтра
+        synchronized void collect(Set<Integer> result, int limit, IntPredicate filter) {
+            for (Integer filmId : filmIds) {
+                if (result.size() >= limit) {
+                    return;
+                }
+                if (filter == null || filter.test(filmId)) {
+                    result.add(filmId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Обратный индекс по названию и описанию фильмов в памяти процесса: для каждого слова
+// отсортированный массив id фильмов (IntAdjacency), отдельно для названия и для описания.
+// Строится из хранилища при старте и обновляется сервисом при создании и изменении фильма.
+// Поиск: совпадение слова запроса в названии дает 2 очка, в описании - 1; при равных очках выше фильм
+// с большим числом лайков из FilmPopularityIndex, затем с меньшим id
+@Component
+@Slf4j
+public class FilmSearchIndex {
+    // Слова запроса сверх этого числа отбрасываются, чтобы очки не переполнили старшие биты ключа
+    static final int MAX_QUERY_TERMS = 10;
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    // Лайки занимают младшие биты ключа ранжирования, очки совпадения - старшие
+    private static final int LIKES_BITS = 24;
+    private static final int MAX_LIKES = (1 << LIKES_BITS) - 1;
+
+    private final FilmStorage filmStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final ConcurrentHashMap<String, IntAdjacency> byName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, IntAdjacency> byDescription = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Terms> termsByFilm = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FilmSearchIndex(FilmStorage filmStorage, FilmPopularityIndex popularityIndex) {
+        this.filmStorage = filmStorage;
+        this.popularityIndex = popularityIndex;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        byName.clear();
+        byDescription.clear();
+        termsByFilm.clear();
+        List<Film> films = filmStorage.getAll();
+        films.forEach(this::put);
+        log.info("Поисковый индекс построен: {} фильмов, {} слов", films.size(), getTermCount());
+    }
+
+    // Добавляет фильм или переиндексирует измененные название и описание
+    public void put(Film film) {
+        Terms updated = new Terms(tokenize(film.getName()), tokenize(film.getDescription()));
+        termsByFilm.compute(film.getId(), (id, current) -> {
+            Terms previous = current == null ? new Terms(Set.of(), Set.of()) : current;
+            reindex(byName, id, previous.name(), updated.name());
+            reindex(byDescription, id, previous.description(), updated.description());
+            return updated;
+        });
+    }
+
+    // Id лучших по совпадению с запросом фильмов, не больше limit; фильмы без совпадений не попадают
+    public List<Integer> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+        // Пары (id, вес) из всех списков упакованы в long и отсортированы: веса одного фильма идут подряд
+        List<long[]> postings = new ArrayList<>();
+        int total = 0;
+        for (String term : terms) {
+            total += collect(postings, byName.get(term), NAME_WEIGHT);
+            total += collect(postings, byDescription.get(term), DESCRIPTION_WEIGHT);
+        }
+        long[] matches = new long[total];
+        int offset = 0;
+        for (long[] part : postings) {
+            System.arraycopy(part, 0, matches, offset, part.length);
+            offset += part.length;
+        }
+        Arrays.sort(matches);
+
+        int[] ids = new int[matches.length];
+        int[] scores = new int[matches.length];
+        int size = 0;
+        for (long match : matches) {
+            int filmId = (int) (match >>> Integer.SIZE);
+            int weight = (int) match;
+            if (size > 0 && ids[size - 1] == filmId) {
+                scores[size - 1] += weight;
+            } else {
+                ids[size] = filmId;
+                scores[size] = weight;
+                size++;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            scores[i] = scores[i] << LIKES_BITS | Math.min(popularityIndex.getLikesCount(ids[i]), MAX_LIKES);
+        }
+        return TopK.select(ids, scores, size, limit, id -> false);
+    }
+
+    // Число слов в индексах названия и описания
+    int getTermCount() {
+        return byName.size() + byDescription.size();
+    }
+
+    // Слова текста в нижнем регистре: буквы и цифры, ё приравнена к е
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                terms.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    // Списки меняются внутри compute, чтобы опустевшее слово удалялось из карты атомарно и запоздавшее
+    // добавление не попало в уже удаленный список
+    private static void reindex(ConcurrentHashMap<String, IntAdjacency> index, int filmId,
+                                Set<String> previous, Set<String> updated) {
+        for (String term : updated) {
+            if (!previous.contains(term)) {
+                index.compute(term, (key, films) -> {
+                    IntAdjacency result = films == null ? new IntAdjacency(0) : films;
+                    result.put(filmId);
+                    return result;
+                });
+            }
+        }
+        for (String term : previous) {
+            if (!updated.contains(term)) {
+                index.computeIfPresent(term, (key, films) -> {
+                    films.remove(filmId);
+                    return films.snapshot().length == 0 ? null : films;
+                });
+            }
+        }
+    }
+
+    private static int collect(List<long[]> postings, IntAdjacency films, int weight) {
+        if (films == null) {
+            return 0;
+        }
+        int[] ids = films.snapshot();
+        long[] part = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            part[i] = (long) ids[i] << Integer.SIZE | weight;
+        }
+        postings.add(part);
+        return part.length;
+    }
+
+    private record Terms(Set<String> name, Set<String> description) {
+    }
+}
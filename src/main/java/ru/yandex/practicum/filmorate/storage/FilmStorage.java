@@ -1,22 +1,66 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     Film create(Film film);
 
+    // Создает фильмы пачкой и проставляет им id; фильмы уже провалидированы
+    List<Film> createAll(List<Film> films);
+
     Film update(Film film);
 
     List<Film> getAll();
 
+    // Последовательно передает все фильмы порциями не больше chunkSize, не держа весь каталог в памяти
+    void forEachChunk(int chunkSize, Consumer<List<Film>> action);
+
+    // Страница фильмов с id больше afterId по возрастанию id
+    List<Film> getPage(int afterId, int limit);
+
     Optional<Film> getById(int id);
 
-    void addLike(int filmId, int userId);
+    // Проверка существования без загрузки самой сущности
+    boolean exists(int id);
+
+    // true, если существуют все переданные id
+    boolean existsAll(int... ids);
+
+    // Какие из переданных id существуют, одним запросом
+    Set<Integer> getExistingIds(Collection<Integer> ids);
+
+    List<Film> getByIds(List<Integer> ids);
 
-    void removeLike(int filmId, int userId);
+    // true, если лайк действительно добавлен (не было раньше)
+    boolean addLike(int filmId, int userId);
+
+    // true, если лайк действительно удален
+    boolean removeLike(int filmId, int userId);
+
+    // Ставит все лайки пачкой; для каждого элемента true, если лайк действительно добавлен
+    boolean[] addLikes(List<FilmLike> likes);
+
+    // Снимает все лайки пачкой; для каждого элемента true, если лайк действительно удален
+    boolean[] removeLikes(List<FilmLike> likes);
 
     List<Film> getPopularFilms(int count);
+
+    // Количество лайков для каждого фильма, включая фильмы без лайков
+    Map<Integer, Integer> getLikesCounts();
+
+    // Обходит все лайки без сборки промежуточных коллекций
+    void forEachLike(LikeVisitor visitor);
+
+    @FunctionalInterface
+    interface LikeVisitor {
+        void visit(int filmId, int userId);
+    }
 }
\ No newline at end of file
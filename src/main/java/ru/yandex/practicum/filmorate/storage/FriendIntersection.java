@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Пересечение отсортированных списков друзей из FriendshipGraph.
+// Элементы списков упакованы как (id << 1) | статус, сравниваются только id; результат упакован
+// с нулевым битом статуса. Способ выбирается по размерам списков:
+// - слияние, когда списки сопоставимы;
+// - галопирующий поиск, когда один список намного длиннее другого: O(m log(n / m)) вместо O(n + m);
+// - AND битовых карт, когда оба списка большие и плотно покрывают общий диапазон id
+final class FriendIntersection {
+    static final int GALLOP_RATIO = 16;
+    static final int BITSET_MIN_SIZE = 1024;
+    private static final int[] EMPTY = new int[0];
+
+    enum Strategy { MERGE, GALLOP, BITSET }
+
+    private FriendIntersection() {
+    }
+
+    // Пересечение нескольких списков: от коротких к длинным, чтобы промежуточный результат быстро сжимался
+    static int[] intersectAll(int[]... lists) {
+        if (lists.length == 0) {
+            return EMPTY;
+        }
+        int[][] ordered = lists.clone();
+        Arrays.sort(ordered, Comparator.comparingInt(list -> list.length));
+        int[] result = ordered[0];
+        if (ordered.length == 1) {
+            return normalize(result);
+        }
+        for (int i = 1; i < ordered.length && result.length > 0; i++) {
+            result = intersect(result, ordered[i]);
+        }
+        return result;
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        int[] small = a.length <= b.length ? a : b;
+        int[] large = small == a ? b : a;
+        return switch (chooseStrategy(small, large)) {
+            case GALLOP -> gallop(small, large);
+            case BITSET -> bitset(small, large);
+            case MERGE -> merge(small, large);
+        };
+    }
+
+    static Strategy chooseStrategy(int[] small, int[] large) {
+        if (small.length == 0) {
+            return Strategy.MERGE;
+        }
+        if (large.length / small.length >= GALLOP_RATIO) {
+            return Strategy.GALLOP;
+        }
+        if (small.length >= BITSET_MIN_SIZE && rangeWords(small, large) <= small.length + large.length) {
+            return Strategy.BITSET;
+        }
+        return Strategy.MERGE;
+    }
+
+    static int[] merge(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int left = a[i] >>> 1;
+            int right = b[j] >>> 1;
+            if (left == right) {
+                result[size++] = left << 1;
+                i++;
+                j++;
+            } else if (left < right) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // Для каждого элемента короткого списка ищем позицию в длинном экспоненциальным шагом от прошлой находки
+    static int[] gallop(int[] small, int[] large) {
+        int[] result = new int[small.length];
+        int size = 0;
+        int low = 0;
+        for (int value : small) {
+            int key = value >>> 1;
+            int step = 1;
+            int high = low;
+            while (high < large.length && large[high] >>> 1 < key) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            low = lowerBound(large, key, low, Math.min(high + 1, large.length));
+            if (low == large.length) {
+                break;
+            }
+            if (large[low] >>> 1 == key) {
+                result[size++] = key << 1;
+                low++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    static int[] bitset(int[] a, int[] b) {
+        int from = Math.max(a[0] >>> 1, b[0] >>> 1);
+        int to = Math.min(a[a.length - 1] >>> 1, b[b.length - 1] >>> 1);
+        if (from > to) {
+            return EMPTY;
+        }
+        long[] words = new long[((to - from) >>> 6) + 1];
+        for (int value : a) {
+            int key = value >>> 1;
+            if (key >= from && key <= to) {
+                words[(key - from) >>> 6] |= 1L << (key - from);
+            }
+        }
+        long[] other = new long[words.length];
+        for (int value : b) {
+            int key = value >>> 1;
+            if (key >= from && key <= to) {
+                other[(key - from) >>> 6] |= 1L << (key - from);
+            }
+        }
+        int count = 0;
+        for (int w = 0; w < words.length; w++) {
+            words[w] &= other[w];
+            count += Long.bitCount(words[w]);
+        }
+        int[] result = new int[count];
+        int size = 0;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                result[size++] = (from + (w << 6) + Long.numberOfTrailingZeros(word)) << 1;
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    static int[] unpack(int[] packed) {
+        int[] ids = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            ids[i] = packed[i] >>> 1;
+        }
+        return ids;
+    }
+
+    private static int[] normalize(int[] packed) {
+        int[] result = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            result[i] = packed[i] & ~1;
+        }
+        return result;
+    }
+
+    private static int lowerBound(int[] packed, int key, int from, int to) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (packed[mid] >>> 1 < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long rangeWords(int[] a, int[] b) {
+        long from = Math.max(a[0] >>> 1, b[0] >>> 1);
+        long to = Math.min(a[a.length - 1] >>> 1, b[b.length - 1] >>> 1);
+        return from > to ? 0 : ((to - from) >>> 6) + 1;
+    }
+}
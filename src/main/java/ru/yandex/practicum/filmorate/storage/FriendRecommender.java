@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// "Возможно, вы знакомы": друзья друзей, которые еще не в друзьях, по убыванию числа общих друзей.
+// Списки друзей друзей собираются и считаются поддеревьями fork/join: каждый лист сортирует свой кусок
+// и сворачивает его в пары (id, количество), родитель сливает отсортированные пары детей.
+// Из итоговых пар лучшие K выбирает TopK
+final class FriendRecommender {
+    // Сколько id друзей друзей лист обрабатывает сам, не разделяя работу дальше
+    static final int SPLIT_THRESHOLD = 20_000;
+
+    private FriendRecommender() {
+    }
+
+    static List<Integer> recommend(FriendshipGraph graph, int userId, int limit) {
+        int[] friends = graph.packedFriends(userId);
+        if (friends.length == 0) {
+            return new ArrayList<>();
+        }
+        int[][] friendsOfFriends = new int[friends.length][];
+        long fanout = 0;
+        for (int i = 0; i < friends.length; i++) {
+            friendsOfFriends[i] = graph.packedFriends(friends[i] >>> 1);
+            fanout += friendsOfFriends[i].length;
+        }
+        CountTask task = new CountTask(friendsOfFriends, 0, friendsOfFriends.length);
+        Counts counts = fanout > SPLIT_THRESHOLD ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+        return TopK.select(counts.ids, counts.counts, counts.size, limit,
+                candidate -> candidate == userId || IntAdjacency.indexOf(friends, candidate, 1) >= 0);
+    }
+
+    // Отсортированные по id пары (id, количество вхождений)
+    private record Counts(int[] ids, int[] counts, int size) {
+    }
+
+    private static final class CountTask extends RecursiveTask<Counts> {
+        private final int[][] lists;
+        private final int from;
+        private final int to;
+
+        CountTask(int[][] lists, int from, int to) {
+            this.lists = lists;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Counts compute() {
+            long size = 0;
+            for (int i = from; i < to; i++) {
+                size += lists[i].length;
+            }
+            if (size <= SPLIT_THRESHOLD || to - from == 1) {
+                return countRange((int) size);
+            }
+            int mid = (from + to) >>> 1;
+            CountTask left = new CountTask(lists, from, mid);
+            left.fork();
+            Counts right = new CountTask(lists, mid, to).compute();
+            return merge(left.join(), right);
+        }
+
+        private Counts countRange(int size) {
+            int[] ids = new int[size];
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                for (int packed : lists[i]) {
+                    ids[n++] = packed >>> 1;
+                }
+            }
+            Arrays.sort(ids);
+            int[] counts = new int[size];
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique > 0 && ids[unique - 1] == ids[i]) {
+                    counts[unique - 1]++;
+                } else {
+                    ids[unique] = ids[i];
+                    counts[unique] = 1;
+                    unique++;
+                }
+            }
+            return new Counts(ids, counts, unique);
+        }
+
+        private static Counts merge(Counts a, Counts b) {
+            int[] ids = new int[a.size + b.size];
+            int[] counts = new int[a.size + b.size];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.size || j < b.size) {
+                if (j == b.size || (i < a.size && a.ids[i] < b.ids[j])) {
+                    ids[size] = a.ids[i];
+                    counts[size++] = a.counts[i++];
+                } else if (i == a.size || b.ids[j] < a.ids[i]) {
+                    ids[size] = b.ids[j];
+                    counts[size++] = b.counts[j++];
+                } else {
+                    ids[size] = a.ids[i];
+                    counts[size++] = a.counts[i++] + b.counts[j++];
+                }
+            }
+            return new Counts(ids, counts, size);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Граф дружбы на примитивных int без упаковки каждого ребра в объекты.
+// Друзья пользователя хранятся в отсортированном по id массиве, каждый элемент упакован
+// как (friendId << 1) | подтверждено, то есть 4 байта на ребро. Записи сначала попадают в небольшой
+// буфер добавления и вливаются в массив пачкой при чтении или при заполнении буфера (см. IntAdjacency)
+public class FriendshipGraph {
+    private static final int[] EMPTY = new int[0];
+    // Младший бит элемента занят статусом, id друга - в старших битах
+    private static final int KEY_SHIFT = 1;
+    public static final int MAX_USER_ID = Integer.MAX_VALUE >> 1;
+
+    private final ConcurrentHashMap<Integer, IntAdjacency> adjacency = new ConcurrentHashMap<>();
+
+    public void put(int userId, int friendId, FriendshipStatus status) {
+        checkId(friendId);
+        adjacencyOf(userId).put(pack(friendId, status));
+    }
+
+    // Меняет статус только существующей связи
+    public void replace(int userId, int friendId, FriendshipStatus status) {
+        checkId(friendId);
+        IntAdjacency list = adjacency.get(userId);
+        if (list != null) {
+            list.replace(pack(friendId, status));
+        }
+    }
+
+    public void remove(int userId, int friendId) {
+        checkId(friendId);
+        IntAdjacency list = adjacency.get(userId);
+        if (list != null) {
+            list.remove(friendId);
+        }
+    }
+
+    public void removeUser(int userId) {
+        adjacency.remove(userId);
+    }
+
+    public void clear() {
+        adjacency.clear();
+    }
+
+    public int degree(int userId) {
+        IntAdjacency list = adjacency.get(userId);
+        return list == null ? 0 : list.snapshot().length;
+    }
+
+    public boolean contains(int userId, int friendId) {
+        IntAdjacency list = adjacency.get(userId);
+        return list != null && indexOf(list.snapshot(), friendId) >= 0;
+    }
+
+    public FriendshipStatus getStatus(int userId, int friendId) {
+        IntAdjacency list = adjacency.get(userId);
+        if (list == null) {
+            return null;
+        }
+        int[] packed = list.snapshot();
+        int index = indexOf(packed, friendId);
+        return index < 0 ? null : statusOf(packed[index]);
+    }
+
+    // Id друзей по возрастанию
+    public int[] friendIds(int userId) {
+        IntAdjacency list = adjacency.get(userId);
+        if (list == null) {
+            return EMPTY;
+        }
+        int[] packed = list.snapshot();
+        int[] ids = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            ids[i] = packed[i] >>> 1;
+        }
+        return ids;
+    }
+
+    public Map<Integer, FriendshipStatus> friendsMap(int userId) {
+        IntAdjacency list = adjacency.get(userId);
+        if (list == null) {
+            return new HashMap<>();
+        }
+        int[] packed = list.snapshot();
+        Map<Integer, FriendshipStatus> friends = new HashMap<>(packed.length * 4 / 3 + 1);
+        for (int value : packed) {
+            friends.put(value >>> 1, statusOf(value));
+        }
+        return friends;
+    }
+
+    public void forEachFriend(int userId, UserStorage.FriendshipVisitor visitor) {
+        for (int value : packedFriends(userId)) {
+            visitor.visit(userId, value >>> 1, statusOf(value));
+        }
+    }
+
+    // Общие друзья всех переданных пользователей, id по возрастанию; способ пересечения
+    // выбирает FriendIntersection по размерам списков
+    public int[] commonFriendIds(int... userIds) {
+        int[][] lists = new int[userIds.length][];
+        for (int i = 0; i < userIds.length; i++) {
+            lists[i] = packedFriends(userIds[i]);
+            if (lists[i].length == 0) {
+                return EMPTY;
+            }
+        }
+        return FriendIntersection.unpack(FriendIntersection.intersectAll(lists));
+    }
+
+    // Упакованный отсортированный список друзей без копирования; массив нельзя изменять
+    int[] packedFriends(int userId) {
+        IntAdjacency list = adjacency.get(userId);
+        return list == null ? EMPTY : list.snapshot();
+    }
+
+    private IntAdjacency adjacencyOf(int userId) {
+        return adjacency.computeIfAbsent(userId, id -> new IntAdjacency(KEY_SHIFT));
+    }
+
+    private static int pack(int friendId, FriendshipStatus status) {
+        return (friendId << 1) | (status == FriendshipStatus.CONFIRMED ? 1 : 0);
+    }
+
+    private static FriendshipStatus statusOf(int packed) {
+        return (packed & 1) == 1 ? FriendshipStatus.CONFIRMED : FriendshipStatus.PENDING;
+    }
+
+    private static int indexOf(int[] packed, int friendId) {
+        return IntAdjacency.indexOf(packed, friendId, KEY_SHIFT);
+    }
+
+    private static void checkId(int id) {
+        if (id < 0 || id > MAX_USER_ID) {
+            throw new IllegalArgumentException("id вне допустимого диапазона графа дружбы: " + id);
+        }
+    }
+}
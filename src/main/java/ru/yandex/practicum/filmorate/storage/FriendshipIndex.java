@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Индекс дружбы для чтения рядом с основным хранилищем: граф строится из хранилища при старте
+// и обновляется сервисом вместе с каждой записью, а списки друзей читаются из памяти без SQL.
+// Семантика операций общая для UserDbStorage и InMemoryUserStorage: заявка - строка отправителя,
+// подтверждение меняет встречную строку, удаление убирает только строку отправителя
+@Component
+@Slf4j
+public class FriendshipIndex {
+    private final UserStorage userStorage;
+    private final FriendshipGraph graph = new FriendshipGraph();
+
+    @Autowired
+    public FriendshipIndex(UserStorage userStorage) {
+        this.userStorage = userStorage;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        graph.clear();
+        AtomicLong edges = new AtomicLong();
+        userStorage.forEachFriendship((userId, friendId, status) -> {
+            graph.put(userId, friendId, status);
+            edges.incrementAndGet();
+        });
+        log.info("Граф дружбы построен: {} связей", edges.get());
+    }
+
+    public void addFriend(int userId, int friendId, FriendshipStatus status) {
+        graph.put(userId, friendId, status);
+    }
+
+    public void confirmFriend(int userId, int friendId) {
+        graph.replace(friendId, userId, FriendshipStatus.CONFIRMED);
+    }
+
+    public void removeFriend(int userId, int friendId) {
+        graph.remove(userId, friendId);
+    }
+
+    public List<Integer> getFriendIds(int userId) {
+        return boxed(graph.friendIds(userId));
+    }
+
+    public List<Integer> getCommonFriendIds(int... userIds) {
+        return boxed(graph.commonFriendIds(userIds));
+    }
+
+    // Id рекомендуемых пользователей по убыванию числа общих друзей
+    public List<Integer> getRecommendedIds(int userId, int limit) {
+        return FriendRecommender.recommend(graph, userId, limit);
+    }
+
+    public FriendshipGraph getGraph() {
+        return graph;
+    }
+
+    private static List<Integer> boxed(int[] ids) {
+        return Arrays.stream(ids).boxed().collect(Collectors.toList());
+    }
+}
@@ -2,24 +2,42 @@ package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+// Потокобезопасное хранилище: id выдаются атомарно, лайки каждого фильма лежат в отдельном
+// конкурентном множестве, поэтому лайки разных фильмов не мешают друг другу
 @Component
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Integer, Film> films = new HashMap<>();
-    private final Map<Integer, Set<Integer>> likes = new HashMap<>();
-    private int nextId = 1;
+    private final ConcurrentNavigableMap<Integer, Film> films = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Integer, Set<Integer>> likes = new ConcurrentHashMap<>();
+    // Битовая карта существующих id для проверок без обращения к карте фильмов
+    private final ConcurrentIdBitmap ids = new ConcurrentIdBitmap();
+    private final AtomicInteger nextId = new AtomicInteger(1);
 
     @Override
     public Film create(Film film) {
-        film.setId(nextId++);
+        film.setId(nextId.getAndIncrement());
+        likes.put(film.getId(), ConcurrentHashMap.newKeySet());
         films.put(film.getId(), film);
-        likes.put(film.getId(), new HashSet<>());
+        ids.set(film.getId());
         return film;
     }
 
+    @Override
+    public List<Film> createAll(List<Film> batch) {
+        batch.forEach(this::create);
+        return batch;
+    }
+
     @Override
     public Film update(Film film) {
         films.put(film.getId(), film);
@@ -31,32 +49,109 @@ public class InMemoryFilmStorage implements FilmStorage {
         return new ArrayList<>(films.values());
     }
 
+    @Override
+    public void forEachChunk(int chunkSize, Consumer<List<Film>> action) {
+        List<Film> chunk = new ArrayList<>(chunkSize);
+        for (Film film : films.values()) {
+            chunk.add(film);
+            if (chunk.size() == chunkSize) {
+                action.accept(List.copyOf(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            action.accept(List.copyOf(chunk));
+        }
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        return films.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public Optional<Film> getById(int id) {
         return Optional.ofNullable(films.get(id));
     }
 
     @Override
-    public void addLike(int filmId, int userId) {
-        likes.computeIfAbsent(filmId, k -> new HashSet<>()).add(userId);
+    public boolean exists(int id) {
+        return ids.get(id);
+    }
+
+    @Override
+    public boolean existsAll(int... ids) {
+        return Arrays.stream(ids).allMatch(this::exists);
+    }
+
+    @Override
+    public Set<Integer> getExistingIds(Collection<Integer> ids) {
+        return ids.stream()
+                .filter(this::exists)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public List<Film> getByIds(List<Integer> ids) {
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        return likes.computeIfAbsent(filmId, k -> ConcurrentHashMap.newKeySet()).add(userId);
+    }
+
+    @Override
+    public boolean[] addLikes(List<FilmLike> batch) {
+        boolean[] added = new boolean[batch.size()];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = addLike(batch.get(i).getFilmId(), batch.get(i).getUserId());
+        }
+        return added;
     }
 
     @Override
-    public void removeLike(int filmId, int userId) {
-        if (likes.containsKey(filmId)) {
-            likes.get(filmId).remove(userId);
+    public boolean[] removeLikes(List<FilmLike> batch) {
+        boolean[] removed = new boolean[batch.size()];
+        for (int i = 0; i < removed.length; i++) {
+            removed[i] = removeLike(batch.get(i).getFilmId(), batch.get(i).getUserId());
         }
+        return removed;
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        Set<Integer> filmLikes = likes.get(filmId);
+        return filmLikes != null && filmLikes.remove(userId);
     }
 
     @Override
     public List<Film> getPopularFilms(int count) {
+        // Снимок количества лайков: при параллельных лайках компаратор должен быть согласованным
+        Map<Integer, Integer> counts = getLikesCounts();
         return films.values().stream()
-                .sorted((f1, f2) -> {
-                    int likes1 = likes.getOrDefault(f1.getId(), Collections.emptySet()).size();
-                    int likes2 = likes.getOrDefault(f2.getId(), Collections.emptySet()).size();
-                    return Integer.compare(likes2, likes1);
-                })
+                .sorted((f1, f2) -> Integer.compare(
+                        counts.getOrDefault(f2.getId(), 0),
+                        counts.getOrDefault(f1.getId(), 0)))
                 .limit(count)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<Integer, Integer> getLikesCounts() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        films.keySet().forEach(filmId ->
+                counts.put(filmId, likes.getOrDefault(filmId, Collections.emptySet()).size()));
+        return counts;
+    }
+
+    @Override
+    public void forEachLike(LikeVisitor visitor) {
+        likes.forEach((filmId, userIds) -> userIds.forEach(userId -> visitor.visit(filmId, userId)));
+    }
+}
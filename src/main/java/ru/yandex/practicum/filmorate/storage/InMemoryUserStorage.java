@@ -5,19 +5,26 @@ import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+// Потокобезопасное хранилище: id выдаются атомарно, дружба хранится в примитивном графе
+// с отсортированными списками друзей
 @Component
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Integer, User> users = new HashMap<>();
-    private final Map<Integer, Map<Integer, FriendshipStatus>> friendships = new HashMap<>();
-    private int nextId = 1;
+    private final ConcurrentNavigableMap<Integer, User> users = new ConcurrentSkipListMap<>();
+    private final FriendshipGraph friendships = new FriendshipGraph();
+    // Битовая карта существующих id для проверок без обращения к карте пользователей
+    private final ConcurrentIdBitmap ids = new ConcurrentIdBitmap();
+    private final AtomicInteger nextId = new AtomicInteger(1);
 
     @Override
     public User create(User user) {
-        user.setId(nextId++);
+        user.setId(nextId.getAndIncrement());
         users.put(user.getId(), user);
-        friendships.put(user.getId(), new HashMap<>());
+        ids.set(user.getId());
         return user;
     }
 
@@ -32,53 +39,85 @@ public class InMemoryUserStorage implements UserStorage {
         return new ArrayList<>(users.values());
     }
 
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        return users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public Optional<User> getById(int id) {
         return Optional.ofNullable(users.get(id));
     }
 
+    @Override
+    public boolean exists(int id) {
+        return ids.get(id);
+    }
+
+    @Override
+    public boolean existsAll(int... ids) {
+        return Arrays.stream(ids).allMatch(this::exists);
+    }
+
+    @Override
+    public Set<Integer> getExistingIds(Collection<Integer> ids) {
+        return ids.stream()
+                .filter(this::exists)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public List<User> getByIds(List<Integer> ids) {
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void addFriend(int userId, int friendId, FriendshipStatus status) {
-        friendships.computeIfAbsent(userId, k -> new HashMap<>()).put(friendId, status);
+        friendships.put(userId, friendId, status);
     }
 
     @Override
     public void confirmFriend(int userId, int friendId) {
-        // Когда пользователь подтверждает дружбу, обновляем статус в обе стороны
-        if (friendships.containsKey(userId) && friendships.get(userId).containsKey(friendId)) {
-            friendships.get(userId).put(friendId, FriendshipStatus.CONFIRMED);
-        }
-        friendships.computeIfAbsent(friendId, k -> new HashMap<>()).put(userId, FriendshipStatus.CONFIRMED);
+        // Как в UserDbStorage: подтверждается заявка, которую friendId отправил userId
+        friendships.replace(friendId, userId, FriendshipStatus.CONFIRMED);
     }
 
     @Override
     public void removeFriend(int userId, int friendId) {
-        if (friendships.containsKey(userId)) {
-            friendships.get(userId).remove(friendId);
-        }
-        if (friendships.containsKey(friendId)) {
-            friendships.get(friendId).remove(userId);
-        }
+        // Как в UserDbStorage: удаляется только связь отправителя
+        friendships.remove(userId, friendId);
     }
 
     @Override
     public List<User> getFriends(int userId) {
-        Map<Integer, FriendshipStatus> userFriends = friendships.getOrDefault(userId, Collections.emptyMap());
-        return userFriends.keySet().stream()
-                .map(users::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        return toUsers(friendships.friendIds(userId));
     }
 
     @Override
     public List<User> getCommonFriends(int userId, int otherId) {
-        Set<Integer> userFriends = friendships.getOrDefault(userId, Collections.emptyMap()).keySet();
-        Set<Integer> otherFriends = friendships.getOrDefault(otherId, Collections.emptyMap()).keySet();
+        return toUsers(friendships.commonFriendIds(userId, otherId));
+    }
 
-        return userFriends.stream()
-                .filter(otherFriends::contains)
-                .map(users::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+    @Override
+    public void forEachFriendship(FriendshipVisitor visitor) {
+        for (Integer userId : users.keySet()) {
+            friendships.forEachFriend(userId, visitor);
+        }
+    }
+
+    private List<User> toUsers(int[] userIds) {
+        List<User> result = new ArrayList<>(userIds.length);
+        for (int id : userIds) {
+            User user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
     }
 }
\ No newline at end of file
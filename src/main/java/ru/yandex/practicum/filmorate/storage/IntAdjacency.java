@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+
+// Отсортированный список неотрицательных int с буфером добавления.
+// Элементы сравниваются по ключу value >>> keyShift, младшие биты могут хранить признаки
+// (так FriendshipGraph хранит статус дружбы). Записи копятся в буфере и вливаются в новый массив
+// пачкой при чтении или при заполнении буфера. Буфер растет вместе со списком, поэтому массовая
+// загрузка в длинный список не пересобирает его на каждые несколько записей, а после слияния
+// буфер освобождается. Опубликованный массив не изменяется, поэтому чтение без ожидающих записей
+// идет без блокировок
+final class IntAdjacency {
+    private static final int[] EMPTY = new int[0];
+    private static final int INITIAL_BUFFER_CAPACITY = 4;
+    private static final int MIN_FLUSH_SIZE = 32;
+
+    private final int keyShift;
+    private int[] buffer = EMPTY;
+    private volatile int[] sorted = EMPTY;
+    private volatile int buffered;
+
+    IntAdjacency(int keyShift) {
+        this.keyShift = keyShift;
+    }
+
+    // Добавляет элемент или заменяет элемент с тем же ключом
+    void put(int value) {
+        append(value);
+    }
+
+    void remove(int key) {
+        // Надгробие: отрицательное значение, которое при слиянии удаляет элемент
+        append(~(key << keyShift));
+    }
+
+    // Добавляет элемент, если элемента с таким ключом нет; true, если добавлен
+    synchronized boolean putIfAbsent(int value) {
+        if (contains(value >>> keyShift)) {
+            return false;
+        }
+        append(value);
+        return true;
+    }
+
+    // Удаляет элемент с ключом, если он есть; true, если удален
+    synchronized boolean removeIfPresent(int key) {
+        if (!contains(key)) {
+            return false;
+        }
+        remove(key);
+        return true;
+    }
+
+    // Меняет только существующий элемент с тем же ключом
+    synchronized void replace(int value) {
+        compact();
+        int index = indexOf(sorted, value >>> keyShift, keyShift);
+        if (index >= 0 && sorted[index] != value) {
+            int[] updated = sorted.clone();
+            updated[index] = value;
+            sorted = updated;
+        }
+    }
+
+    // Отсортированный массив элементов; изменять его нельзя
+    int[] snapshot() {
+        if (buffered == 0) {
+            return sorted;
+        }
+        synchronized (this) {
+            compact();
+            return sorted;
+        }
+    }
+
+    // Последняя операция в буфере по ключу важнее массива, поэтому сначала смотрим буфер с конца
+    private boolean contains(int key) {
+        for (int n = buffered - 1; n >= 0; n--) {
+            if (keyOf(buffer[n]) == key) {
+                return buffer[n] >= 0;
+            }
+        }
+        return indexOf(sorted, key, keyShift) >= 0;
+    }
+
+    static int indexOf(int[] values, int key, int keyShift) {
+        // Ищем наименьший элемент с данным ключом, не зная значения младших битов
+        int index = Arrays.binarySearch(values, key << keyShift);
+        if (index >= 0) {
+            return index;
+        }
+        int insertion = -index - 1;
+        return insertion < values.length && values[insertion] >>> keyShift == key ? insertion : -1;
+    }
+
+    private synchronized void append(int op) {
+        if (buffered == buffer.length) {
+            // Сливаем, когда буфер дорос до четверти списка: стоимость слияния делится на много записей
+            if (buffered >= Math.max(MIN_FLUSH_SIZE, sorted.length >> 2)) {
+                compact();
+            }
+            if (buffered == buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(INITIAL_BUFFER_CAPACITY, buffered * 2));
+            }
+        }
+        buffer[buffered] = op;
+        buffered = buffered + 1;
+    }
+
+    // Вливает буфер в отсортированный массив: побеждает последняя операция по каждому ключу
+    private void compact() {
+        if (buffered == 0) {
+            return;
+        }
+        // Ключ сортировки: ключ элемента в старших битах, порядковый номер операции в младших,
+        // так внутри одного ключа сохраняется порядок операций
+        long[] order = new long[buffered];
+        for (int n = 0; n < buffered; n++) {
+            order[n] = ((long) keyOf(buffer[n]) << Integer.SIZE) | n;
+        }
+        Arrays.sort(order);
+
+        int[] current = sorted;
+        int[] merged = new int[current.length + order.length];
+        int size = 0;
+        int i = 0;
+        int k = 0;
+        while (k < order.length) {
+            int key = (int) (order[k] >>> Integer.SIZE);
+            int last = buffer[(int) order[k]];
+            while (k + 1 < order.length && (int) (order[k + 1] >>> Integer.SIZE) == key) {
+                k++;
+                last = buffer[(int) order[k]];
+            }
+            k++;
+            while (i < current.length && current[i] >>> keyShift < key) {
+                merged[size++] = current[i++];
+            }
+            if (i < current.length && current[i] >>> keyShift == key) {
+                i++;
+            }
+            if (last >= 0) {
+                merged[size++] = last;
+            }
+        }
+        while (i < current.length) {
+            merged[size++] = current[i++];
+        }
+        sorted = size == merged.length ? merged : Arrays.copyOf(merged, size);
+        buffer = EMPTY;
+        buffered = 0;
+    }
+
+    private int keyOf(int op) {
+        return (op >= 0 ? op : ~op) >>> keyShift;
+    }
+}
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Разреженная матрица лайков "пользователь x фильм" в памяти процесса: для каждого пользователя
+// отсортированный массив id фильмов и для каждого фильма отсортированный массив id пользователей.
+// Строится из хранилища при старте и обновляется сервисом при каждом изменении лайка.
+// Рекомендации: пользователи с наибольшим числом общих лайков, их фильмы, которых у пользователя нет,
+// взвешенные числом общих лайков
+@Component
+@Slf4j
+public class LikeMatrix {
+    // Сколько самых похожих пользователей участвуют в рекомендации
+    static final int SIMILAR_USERS = 50;
+
+    private final FilmStorage filmStorage;
+    private final ConcurrentHashMap<Integer, IntAdjacency> filmsByUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, IntAdjacency> usersByFilm = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LikeMatrix(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        filmsByUser.clear();
+        usersByFilm.clear();
+        AtomicLong likes = new AtomicLong();
+        // При загрузке пары уникальны, проверка наличия не нужна
+        filmStorage.forEachLike((filmId, userId) -> {
+            filmsByUser.computeIfAbsent(userId, id -> new IntAdjacency(0)).put(filmId);
+            usersByFilm.computeIfAbsent(filmId, id -> new IntAdjacency(0)).put(userId);
+            likes.incrementAndGet();
+        });
+        log.info("Матрица лайков построена: {} лайков", likes.get());
+    }
+
+    // true, если лайка не было. Решение принимается по списку фильмов пользователя под его блокировкой,
+    // поэтому одновременные лайк и отмена одной пары не расходятся между двумя списками
+    public boolean addLike(int filmId, int userId) {
+        IntAdjacency films = filmsByUser.computeIfAbsent(userId, id -> new IntAdjacency(0));
+        synchronized (films) {
+            if (!films.putIfAbsent(filmId)) {
+                return false;
+            }
+            usersByFilm.computeIfAbsent(filmId, id -> new IntAdjacency(0)).put(userId);
+            return true;
+        }
+    }
+
+    // true, если лайк был
+    public boolean removeLike(int filmId, int userId) {
+        IntAdjacency films = filmsByUser.get(userId);
+        if (films == null) {
+            return false;
+        }
+        synchronized (films) {
+            if (!films.removeIfPresent(filmId)) {
+                return false;
+            }
+            IntAdjacency users = usersByFilm.get(filmId);
+            if (users != null) {
+                users.remove(userId);
+            }
+            return true;
+        }
+    }
+
+    public int[] getLikedFilmIds(int userId) {
+        return snapshot(filmsByUser, userId).clone();
+    }
+
+    // Id рекомендуемых фильмов по убыванию веса, при равенстве по возрастанию id
+    public List<Integer> getRecommendedFilmIds(int userId, int limit) {
+        int[] liked = snapshot(filmsByUser, userId);
+        if (liked.length == 0) {
+            return new ArrayList<>();
+        }
+
+        // Число общих лайков с каждым другим пользователем
+        int total = 0;
+        int[][] likers = new int[liked.length][];
+        for (int i = 0; i < liked.length; i++) {
+            likers[i] = snapshot(usersByFilm, liked[i]);
+            total += likers[i].length;
+        }
+        int[] users = new int[total];
+        int n = 0;
+        for (int[] list : likers) {
+            System.arraycopy(list, 0, users, n, list.length);
+            n += list.length;
+        }
+        Arrays.sort(users);
+        int[] overlaps = new int[total];
+        int uniqueUsers = runLengths(users, overlaps, total);
+        List<Integer> similar = TopK.select(users, overlaps, uniqueUsers, SIMILAR_USERS, id -> id == userId);
+
+        // Фильмы похожих пользователей, которых нет у пользователя: пары (id фильма, вес) в одном long
+        int candidates = 0;
+        int[][] similarFilms = new int[similar.size()][];
+        int[] weights = new int[similar.size()];
+        for (int i = 0; i < similar.size(); i++) {
+            int other = similar.get(i);
+            similarFilms[i] = snapshot(filmsByUser, other);
+            weights[i] = overlaps[Arrays.binarySearch(users, 0, uniqueUsers, other)];
+            candidates += similarFilms[i].length;
+        }
+        long[] pairs = new long[candidates];
+        n = 0;
+        for (int i = 0; i < similarFilms.length; i++) {
+            for (int filmId : similarFilms[i]) {
+                if (Arrays.binarySearch(liked, filmId) < 0) {
+                    pairs[n++] = ((long) filmId << Integer.SIZE) | weights[i];
+                }
+            }
+        }
+        Arrays.sort(pairs, 0, n);
+        int[] films = new int[n];
+        int[] scores = new int[n];
+        int uniqueFilms = 0;
+        for (int i = 0; i < n; i++) {
+            int filmId = (int) (pairs[i] >>> Integer.SIZE);
+            int weight = (int) pairs[i];
+            if (uniqueFilms > 0 && films[uniqueFilms - 1] == filmId) {
+                scores[uniqueFilms - 1] += weight;
+            } else {
+                films[uniqueFilms] = filmId;
+                scores[uniqueFilms++] = weight;
+            }
+        }
+        return TopK.select(films, scores, uniqueFilms, limit, id -> false);
+    }
+
+    // Сворачивает отсортированный массив на месте в уникальные значения и их количества
+    private static int runLengths(int[] values, int[] counts, int size) {
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique > 0 && values[unique - 1] == values[i]) {
+                counts[unique - 1]++;
+            } else {
+                values[unique] = values[i];
+                counts[unique++] = 1;
+            }
+        }
+        return unique;
+    }
+
+    private static int[] snapshot(ConcurrentHashMap<Integer, IntAdjacency> lists, int id) {
+        IntAdjacency list = lists.get(id);
+        return list == null ? new int[0] : list.snapshot();
+    }
+}
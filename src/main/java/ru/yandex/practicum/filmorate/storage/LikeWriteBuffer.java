@@ -0,0 +1,242 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Отложенная запись лайков (включается filmorate.likes.write-behind.enabled).
+// Сервис решает, меняет ли операция состояние, по матрице лайков в памяти и кладет изменение сюда.
+// Лайк и отмена одной пары, еще не записанные в базу, взаимно сокращаются. Фоновый поток пишет
+// накопленное пачками, когда набралось batch-size операций или прошло flush-interval-ms.
+// Запрос заранее резервирует место; если очередь вместе с резервом заполнена, ждет до offer-timeout-ms,
+// затем получает OverloadedException.
+// При остановке приложения очередь дописывается в базу
+@Component
+@Slf4j
+public class LikeWriteBuffer {
+    private final FilmStorage filmStorage;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+
+    private final Object lock = new Object();
+    // Ключ (filmId << 32 | userId) -> true для лайка, false для отмены
+    private LinkedHashMap<Long, Boolean> pending = new LinkedHashMap<>();
+    // Места, зарезервированные запросами, которые еще не поставили операции в очередь
+    private int reserved;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public LikeWriteBuffer(FilmStorage filmStorage,
+                           @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${filmorate.likes.write-behind.capacity:100000}") int capacity,
+                           @Value("${filmorate.likes.write-behind.batch-size:1000}") int batchSize,
+                           @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMillis,
+                           @Value("${filmorate.likes.write-behind.offer-timeout-ms:1000}") long offerTimeoutMillis) {
+        if (capacity < 1 || batchSize < 1 || flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("Параметры filmorate.likes.write-behind должны быть положительными.");
+        }
+        this.filmStorage = filmStorage;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        log.info("Отложенная запись лайков включена: очередь {}, пачка {}, интервал {} мс",
+                capacity, batchSize, flushIntervalMillis);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    // Резервирует место в очереди под count операций; вызывается до изменения состояния в памяти,
+    // чтобы отказ ничего не менял. Каждое место затем занимает submitReserved или освобождает release.
+    // Пачка либо целиком получает места, либо отклоняется; пачка больше всей очереди ждет, пока очередь
+    // и резерв не опустеют
+    public void reserve(int count) {
+        if (count < 1) {
+            return;
+        }
+        synchronized (lock) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+            while (pending.size() + reserved + count > capacity && (!pending.isEmpty() || reserved > 0)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new OverloadedException("Очередь записи лайков переполнена, повторите запрос позже.");
+                }
+                requestFlush();
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OverloadedException("Ожидание очереди записи лайков прервано.");
+                }
+            }
+            reserved += count;
+        }
+    }
+
+    // Возвращает неиспользованные места: операция ничего не изменила или не дошла до очереди
+    public void release(int count) {
+        if (count < 1) {
+            return;
+        }
+        synchronized (lock) {
+            reserved -= count;
+            lock.notifyAll();
+        }
+    }
+
+    // Ставит изменение в очередь без резерва; встречная операция по той же паре сокращает ожидающую
+    public void submit(int filmId, int userId, boolean like) {
+        enqueue(filmId, userId, like, false);
+    }
+
+    // Ставит изменение в очередь на место, зарезервированное reserve
+    public void submitReserved(int filmId, int userId, boolean like) {
+        enqueue(filmId, userId, like, true);
+    }
+
+    // Записывает все накопленные операции пачками по batch-size.
+    // При ошибке все незаписанные операции обоих видов возвращаются в очередь
+    public void flush() {
+        Map<Long, Boolean> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            lock.notifyAll();
+        }
+        List<FilmLike> likes = new ArrayList<>();
+        List<FilmLike> unlikes = new ArrayList<>();
+        batch.forEach((key, like) -> (like ? likes : unlikes).add(
+                new FilmLike((int) (key >>> Integer.SIZE), (int) (long) key)));
+        try {
+            write(likes, true);
+        } catch (RuntimeException e) {
+            // Незаписанные лайки вернул write, отмены еще не писались - возвращаем их целиком
+            requeue(unlikes, false);
+            throw e;
+        }
+        write(unlikes, false);
+        log.debug("Записано лайков: {}, отмен: {}", likes.size(), unlikes.size());
+    }
+
+    private void write(List<FilmLike> operations, boolean like) {
+        for (int from = 0; from < operations.size(); from += batchSize) {
+            List<FilmLike> chunk = operations.subList(from, Math.min(from + batchSize, operations.size()));
+            try {
+                if (like) {
+                    filmStorage.addLikes(chunk);
+                } else {
+                    filmStorage.removeLikes(chunk);
+                }
+            } catch (RuntimeException e) {
+                requeue(operations.subList(from, operations.size()), like);
+                throw e;
+            }
+        }
+    }
+
+    // Возвращает незаписанные операции в очередь; более новые операции по тем же парам применяются поверх
+    private void requeue(List<FilmLike> operations, boolean like) {
+        synchronized (lock) {
+            LinkedHashMap<Long, Boolean> merged = new LinkedHashMap<>();
+            operations.forEach(op -> merged.put(key(op.getFilmId(), op.getUserId()), like));
+            pending.forEach((key, newer) -> enqueue(merged, key, newer));
+            pending = merged;
+        }
+    }
+
+    private void requestFlush() {
+        if (flusher != null && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать пачку лайков, операции возвращены в очередь", e);
+        }
+    }
+
+    private void enqueue(int filmId, int userId, boolean like, boolean fromReserve) {
+        boolean batchReady;
+        synchronized (lock) {
+            enqueue(pending, key(filmId, userId), like);
+            if (fromReserve) {
+                reserved--;
+                lock.notifyAll();
+            }
+            batchReady = pending.size() >= batchSize;
+        }
+        if (batchReady) {
+            requestFlush();
+        }
+    }
+
+    private static void enqueue(Map<Long, Boolean> queue, long key, boolean like) {
+        Boolean queued = queue.get(key);
+        if (queued != null && queued != like) {
+            queue.remove(key);
+        } else {
+            queue.put(key, like);
+        }
+    }
+
+    private static long key(int filmId, int userId) {
+        return ((long) filmId << Integer.SIZE) | (userId & 0xFFFFFFFFL);
+    }
+}
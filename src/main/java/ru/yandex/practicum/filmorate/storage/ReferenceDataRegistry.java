@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// Справочники MPA и жанров, загруженные в память при старте.
+// Экземпляры общие для всех фильмов и ответов и не изменяются, поиск по id — обращение к массиву.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceDataRegistry {
+    private final MpaDbStorage mpaDbStorage;
+    private final GenreDbStorage genreDbStorage;
+    private volatile Snapshot snapshot = new Snapshot(new Mpa[0], List.of(), new Genre[0], List.of());
+
+    @PostConstruct
+    public void reload() {
+        List<Mpa> mpaList = List.copyOf(mpaDbStorage.getAllMpa());
+        List<Genre> genreList = List.copyOf(genreDbStorage.getAllGenres());
+
+        Mpa[] mpaById = new Mpa[mpaList.stream().mapToInt(Mpa::getId).max().orElse(0) + 1];
+        mpaList.forEach(mpa -> mpaById[mpa.getId()] = mpa);
+        Genre[] genresById = new Genre[genreList.stream().mapToInt(Genre::getId).max().orElse(0) + 1];
+        genreList.forEach(genre -> genresById[genre.getId()] = genre);
+
+        snapshot = new Snapshot(mpaById, mpaList, genresById, genreList);
+        log.info("Загружены справочники: {} рейтингов MPA, {} жанров", mpaList.size(), genreList.size());
+    }
+
+    public List<Mpa> getAllMpa() {
+        return snapshot.mpaList();
+    }
+
+    public Optional<Mpa> getMpaById(int id) {
+        Mpa[] mpaById = snapshot.mpaById();
+        return id >= 0 && id < mpaById.length ? Optional.ofNullable(mpaById[id]) : Optional.empty();
+    }
+
+    public List<Genre> getAllGenres() {
+        return snapshot.genreList();
+    }
+
+    public Optional<Genre> getGenreById(int id) {
+        Genre[] genresById = snapshot.genresById();
+        return id >= 0 && id < genresById.length ? Optional.ofNullable(genresById[id]) : Optional.empty();
+    }
+
+    // Существующие жанры из переданных id, по возрастанию id
+    public List<Genre> getGenresByIds(Collection<Integer> ids) {
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .map(this::getGenreById)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+    }
+
+    // Публикуется целиком, чтобы reload не был виден читателям наполовину
+    private record Snapshot(Mpa[] mpaById, List<Mpa> mpaList, Genre[] genresById, List<Genre> genreList) {
+    }
+}
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.sql.Types;
+
+// Запросы записи всех *DbStorage: текст, типы параметров и, для insert, столбцы генерируемых ключей.
+// Компилируются один раз при старте в StatementRegistry
+public enum SqlStatement {
+    INSERT_FILM("INSERT INTO films (name, description, release_date, duration, mpa_rating_id) " +
+            "VALUES (?, ?, ?, ?, ?)",
+            new int[]{Types.VARCHAR, Types.VARCHAR, Types.DATE, Types.INTEGER, Types.INTEGER}, "film_id"),
+    UPDATE_FILM("UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_rating_id = ? " +
+            "WHERE film_id = ?",
+            new int[]{Types.VARCHAR, Types.VARCHAR, Types.DATE, Types.INTEGER, Types.INTEGER, Types.INTEGER}),
+    INSERT_FILM_GENRE("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)",
+            new int[]{Types.INTEGER, Types.INTEGER}),
+    // Без WHEN MATCHED повторный лайк не затрагивает строк и не меняет счетчик
+    MERGE_LIKE("MERGE INTO likes l USING (VALUES (?, ?)) AS s(film_id, user_id) " +
+            "ON l.film_id = s.film_id AND l.user_id = s.user_id " +
+            "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (s.film_id, s.user_id)",
+            new int[]{Types.INTEGER, Types.INTEGER}),
+    DELETE_LIKE("DELETE FROM likes WHERE film_id = ? AND user_id = ?",
+            new int[]{Types.INTEGER, Types.INTEGER}),
+    ADD_LIKES_COUNT("UPDATE films SET likes_count = likes_count + ? WHERE film_id = ?",
+            new int[]{Types.INTEGER, Types.INTEGER}),
+    INSERT_USER("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+            new int[]{Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DATE}, "user_id"),
+    UPDATE_USER("UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE user_id = ?",
+            new int[]{Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DATE, Types.INTEGER}),
+    MERGE_FRIENDSHIP("MERGE INTO friendships (user_id, friend_id, status) KEY (user_id, friend_id) VALUES (?, ?, ?)",
+            new int[]{Types.INTEGER, Types.INTEGER, Types.VARCHAR}),
+    UPDATE_FRIENDSHIP_STATUS("UPDATE friendships SET status = ? WHERE user_id = ? AND friend_id = ?",
+            new int[]{Types.VARCHAR, Types.INTEGER, Types.INTEGER}),
+    DELETE_FRIENDSHIP("DELETE FROM friendships WHERE user_id = ? AND friend_id = ?",
+            new int[]{Types.INTEGER, Types.INTEGER});
+
+    private final String sql;
+    private final int[] types;
+    private final String[] keyColumns;
+
+    SqlStatement(String sql, int[] types, String... keyColumns) {
+        this.sql = sql;
+        this.types = types;
+        this.keyColumns = keyColumns;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    int[] getTypes() {
+        return types.clone();
+    }
+
+    String[] getKeyColumns() {
+        return keyColumns.clone();
+    }
+}
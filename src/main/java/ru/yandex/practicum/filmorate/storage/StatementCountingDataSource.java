@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Обертка над пулом соединений: каждое выполнение запроса (execute*, в том числе пачка)
+// учитывается в текущей области StatementStats. Текст SQL берется из prepareStatement/prepareCall
+// или из аргумента execute. Пулом и метриками Hikari обертка не мешает: unwrap уходит в пул
+public class StatementCountingDataSource extends DelegatingDataSource {
+    private static final String BATCH = "<batch>";
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement
+                            && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                        return wrap(statement, method.getReturnType(), sql);
+                    }
+                    return result;
+                });
+    }
+
+    private static Object wrap(Statement statement, Class<?> type, String preparedSql) {
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        StatementStats.record(sql(method, args, preparedSql));
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static String sql(Method method, Object[] args, String preparedSql) {
+        if (args != null && args.length > 0 && args[0] instanceof String text) {
+            return text;
+        }
+        if (preparedSql != null) {
+            return preparedSql;
+        }
+        return method.getName().equals("executeBatch") ? BATCH : method.getName();
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
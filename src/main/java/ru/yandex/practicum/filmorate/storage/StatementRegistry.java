@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Реестр запросов записи из SqlStatement, общий для всех *DbStorage.
+// Фабрики с типами параметров и столбцами ключей строятся один раз, поэтому insert не ходит
+// за метаданными таблицы, как SimpleJdbcInsert. При старте каждый запрос один раз подготавливается
+// на соединении: ошибка в SQL или схеме видна сразу, а не на первой записи.
+// Разобранные запросы H2 кэширует на соединении пула (QUERY_CACHE_SIZE в URL базы)
+@Component
+@Slf4j
+public class StatementRegistry {
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<SqlStatement, PreparedStatementCreatorFactory> factories = new EnumMap<>(SqlStatement.class);
+
+    @Autowired
+    public StatementRegistry(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (SqlStatement statement : SqlStatement.values()) {
+            PreparedStatementCreatorFactory factory =
+                    new PreparedStatementCreatorFactory(statement.getSql(), statement.getTypes());
+            if (statement.getKeyColumns().length > 0) {
+                factory.setReturnGeneratedKeys(true);
+                factory.setGeneratedKeysColumnNames(statement.getKeyColumns());
+            }
+            factories.put(statement, factory);
+        }
+    }
+
+    @PostConstruct
+    public void verify() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            for (SqlStatement statement : SqlStatement.values()) {
+                try (PreparedStatement ignored = connection.prepareStatement(statement.getSql())) {
+                    log.trace("Подготовлен запрос {}", statement);
+                }
+            }
+            return null;
+        });
+        log.info("Подготовлено запросов записи: {}", factories.size());
+    }
+
+    // Insert с генерируемым ключом; возвращает ключ новой строки
+    public int insert(SqlStatement statement, Object... args) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(factories.get(statement).newPreparedStatementCreator(args), keyHolder);
+        Number key = keyHolder.getKey();
+        if (key == null) {
+            throw new IllegalStateException("Запрос " + statement + " не вернул ключ.");
+        }
+        return key.intValue();
+    }
+
+    public int update(SqlStatement statement, Object... args) {
+        return jdbcTemplate.update(factories.get(statement).newPreparedStatementCreator(args));
+    }
+
+    public int[] batchUpdate(SqlStatement statement, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(statement.getSql(), rows, statement.getTypes());
+    }
+}
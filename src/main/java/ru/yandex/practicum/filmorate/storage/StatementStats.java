@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Запросы к базе, выполненные в одной области (обычно HTTP-запрос): всего и по тексту SQL.
+// Область привязана к потоку; ParallelChecks переносит ее в свои потоки через propagate.
+// Запросы считает StatementCountingDataSource; вне области они не учитываются
+public final class StatementStats implements AutoCloseable {
+    private static final ThreadLocal<StatementStats> CURRENT = new ThreadLocal<>();
+
+    private final StatementStats previous;
+    private final AtomicInteger total = new AtomicInteger();
+    private final Map<String, AtomicInteger> bySql = new ConcurrentHashMap<>();
+
+    private StatementStats(StatementStats previous) {
+        this.previous = previous;
+    }
+
+    public static StatementStats open() {
+        StatementStats stats = new StatementStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    // Задача, которая в другом потоке пишет в текущую область
+    public static Runnable propagate(Runnable task) {
+        StatementStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> {
+            StatementStats outer = CURRENT.get();
+            CURRENT.set(stats);
+            try {
+                task.run();
+            } finally {
+                restore(outer);
+            }
+        };
+    }
+
+    static void record(String sql) {
+        StatementStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.total.incrementAndGet();
+            stats.bySql.computeIfAbsent(sql, key -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    public int getTotal() {
+        return total.get();
+    }
+
+    // Чаще всего повторявшийся запрос и число его выполнений
+    public Optional<Map.Entry<String, Integer>> getMostRepeated() {
+        return bySql.entrySet().stream()
+                .max(Comparator.comparingInt(entry -> entry.getValue().get()))
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().get()));
+    }
+
+    @Override
+    public void close() {
+        restore(previous);
+    }
+
+    private static void restore(StatementStats stats) {
+        if (stats == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(stats);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Метрики публичных методов *DbStorage: время выполнения (filmorate.storage, перцентили задаются
+// в management.metrics.distribution) и число возвращенных строк (filmorate.storage.rows)
+// с тегами storage и method
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class StorageMetricsAspect {
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    private record Meters(Timer timer, Counter rows) {
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage.*DbStorage.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Meters methodMeters = meters.computeIfAbsent(signature.getMethod(), this::register);
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            int rows = rows(result);
+            if (rows > 0) {
+                methodMeters.rows().increment(rows);
+            }
+            return result;
+        } finally {
+            methodMeters.timer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Meters register(Method method) {
+        String storage = method.getDeclaringClass().getSimpleName();
+        return new Meters(
+                Timer.builder("filmorate.storage")
+                        .description("Время выполнения метода хранилища")
+                        .tag("storage", storage)
+                        .tag("method", method.getName())
+                        .register(meterRegistry),
+                Counter.builder("filmorate.storage.rows")
+                        .description("Строки, возвращенные методом хранилища")
+                        .tag("storage", storage)
+                        .tag("method", method.getName())
+                        .register(meterRegistry));
+    }
+
+    private static int rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+// Выбор K лучших id по очкам кучей размера K, без сортировки всех кандидатов.
+// Больше очков - выше, при равенстве выше меньший id
+final class TopK {
+
+    private TopK() {
+    }
+
+    static List<Integer> select(int[] ids, int[] scores, int size, int k, IntPredicate excluded) {
+        PriorityQueue<Long> heap = new PriorityQueue<>(k + 1);
+        for (int i = 0; i < size; i++) {
+            int id = ids[i];
+            if (excluded.test(id)) {
+                continue;
+            }
+            // Ключ растет с очками и убывает с id, так что вершина кучи - худший из лучших
+            long key = ((long) scores[i] << Integer.SIZE) | (Integer.MAX_VALUE - id);
+            if (heap.size() < k) {
+                heap.add(key);
+            } else if (key > heap.peek()) {
+                heap.poll();
+                heap.add(key);
+            }
+        }
+        Integer[] result = new Integer[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = Integer.MAX_VALUE - (int) (long) heap.poll();
+        }
+        return new ArrayList<>(List.of(result));
+    }
+}
@@ -2,9 +2,9 @@ package ru.yandex.practicum.filmorate.storage;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
@@ -12,36 +12,29 @@ import ru.yandex.practicum.filmorate.model.User;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Repository
-@Primary
 @RequiredArgsConstructor
 @Slf4j
 public class UserDbStorage implements UserStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final StatementRegistry statements;
 
     @Override
     public User create(User user) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("users")
-                .usingGeneratedKeyColumns("user_id");
-
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("email", user.getEmail());
-        parameters.put("login", user.getLogin());
-        parameters.put("name", user.getName());
-        parameters.put("birthday", user.getBirthday());
-
-        Number key = simpleJdbcInsert.executeAndReturnKey(parameters);
-        user.setId(key.intValue());
+        user.setId(statements.insert(SqlStatement.INSERT_USER,
+                user.getEmail(),
+                user.getLogin(),
+                user.getName(),
+                user.getBirthday()));
         log.info("Создан пользователь с id: {}", user.getId());
         return user;
     }
 
     @Override
     public User update(User user) {
-        String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE user_id = ?";
-        jdbcTemplate.update(sql,
+        statements.update(SqlStatement.UPDATE_USER,
                 user.getEmail(),
                 user.getLogin(),
                 user.getName(),
@@ -55,11 +48,31 @@ public class UserDbStorage implements UserStorage {
     public List<User> getAll() {
         String sql = "SELECT * FROM users";
         List<User> users = jdbcTemplate.query(sql, this::mapRowToUser);
-        // Загружаем друзей для каждого пользователя
+        // Загружаем дружбу всех пользователей одним запросом
+        Map<Integer, User> usersById = new HashMap<>();
+        users.forEach(user -> {
+            user.setFriends(new HashMap<>());
+            usersById.put(user.getId(), user);
+        });
+        jdbcTemplate.query("SELECT user_id, friend_id, status FROM friendships", friendshipsHandler(usersById));
+        return users;
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
+        List<User> users = jdbcTemplate.query(sql, this::mapRowToUser, afterId, limit);
+        if (users.isEmpty()) {
+            return users;
+        }
+        // Дружба для всей страницы одним запросом по диапазону id
+        Map<Integer, User> usersById = new HashMap<>();
         users.forEach(user -> {
-            Map<Integer, FriendshipStatus> friends = loadUserFriends(user.getId());
-            user.setFriends(friends);
+            user.setFriends(new HashMap<>());
+            usersById.put(user.getId(), user);
         });
+        jdbcTemplate.query("SELECT user_id, friend_id, status FROM friendships WHERE user_id > ? AND user_id <= ?",
+                friendshipsHandler(usersById), afterId, users.get(users.size() - 1).getId());
         return users;
     }
 
@@ -72,29 +85,77 @@ public class UserDbStorage implements UserStorage {
         }
         User user = users.get(0);
         // Загружаем друзей пользователя
-        Map<Integer, FriendshipStatus> friends = loadUserFriends(user.getId());
-        user.setFriends(friends);
+        user.setFriends(new HashMap<>());
+        jdbcTemplate.query("SELECT user_id, friend_id, status FROM friendships WHERE user_id = ?",
+                friendshipsHandler(Map.of(user.getId(), user)), user.getId());
         return Optional.of(user);
     }
 
+    @Override
+    public boolean exists(int id) {
+        String sql = "SELECT 1 FROM users WHERE user_id = ? LIMIT 1";
+        return Boolean.TRUE.equals(jdbcTemplate.query(sql, (ResultSetExtractor<Boolean>) ResultSet::next, id));
+    }
+
+    @Override
+    public boolean existsAll(int... ids) {
+        Object[] uniqueIds = Arrays.stream(ids).distinct().boxed().toArray();
+        if (uniqueIds.length == 0) {
+            return true;
+        }
+        String sql = "SELECT COUNT(*) FROM users WHERE user_id IN (" +
+                String.join(",", Collections.nCopies(uniqueIds.length, "?")) +
+                ")";
+        Integer found = jdbcTemplate.queryForObject(sql, Integer.class, uniqueIds);
+        return found != null && found == uniqueIds.length;
+    }
+
+    @Override
+    public Set<Integer> getExistingIds(Collection<Integer> ids) {
+        Object[] uniqueIds = ids.stream().distinct().toArray();
+        if (uniqueIds.length == 0) {
+            return new HashSet<>();
+        }
+        String sql = "SELECT user_id FROM users WHERE user_id IN (" +
+                String.join(",", Collections.nCopies(uniqueIds.length, "?")) +
+                ")";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Integer.class, uniqueIds));
+    }
+
+    @Override
+    public List<User> getByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String sql = "SELECT * FROM users WHERE user_id IN (" +
+                String.join(",", Collections.nCopies(ids.size(), "?")) +
+                ")";
+        Map<Integer, User> usersById = new HashMap<>();
+        jdbcTemplate.query(sql, this::mapRowToUser, ids.toArray())
+                .forEach(user -> usersById.put(user.getId(), user));
+
+        // Возвращаем пользователей в порядке запрошенных id
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void addFriend(int userId, int friendId, FriendshipStatus status) {
-        String sql = "MERGE INTO friendships (user_id, friend_id, status) KEY (user_id, friend_id) VALUES (?, ?, ?)";
-        jdbcTemplate.update(sql, userId, friendId, status.toString());
+        statements.update(SqlStatement.MERGE_FRIENDSHIP, userId, friendId, status.toString());
         log.info("Пользователь {} добавил в друзья пользователя {} со статусом {}", userId, friendId, status);
     }
 
     @Override
     public void confirmFriend(int userId, int friendId) {
-        String sql = "UPDATE friendships SET status = ? WHERE user_id = ? AND friend_id = ?";
-        jdbcTemplate.update(sql, FriendshipStatus.CONFIRMED.toString(), friendId, userId);
+        statements.update(SqlStatement.UPDATE_FRIENDSHIP_STATUS, FriendshipStatus.CONFIRMED.toString(), friendId, userId);
         log.info("Пользователь {} подтвердил дружбу с пользователем {}", userId, friendId);
     }
 
     @Override
     public void removeFriend(int userId, int friendId) {
-        String sql = "DELETE FROM friendships WHERE user_id = ? AND friend_id = ?";
-        jdbcTemplate.update(sql, userId, friendId);
+        statements.update(SqlStatement.DELETE_FRIENDSHIP, userId, friendId);
         log.info("Пользователь {} удалил из друзей пользователя {}", userId, friendId);
     }
 
@@ -115,6 +176,13 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(sql, this::mapRowToUser, userId, otherId);
     }
 
+    @Override
+    public void forEachFriendship(FriendshipVisitor visitor) {
+        jdbcTemplate.query("SELECT user_id, friend_id, status FROM friendships", (RowCallbackHandler) rs ->
+                visitor.visit(rs.getInt("user_id"), rs.getInt("friend_id"),
+                        FriendshipStatus.valueOf(rs.getString("status"))));
+    }
+
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
         User user = new User();
         user.setId(rs.getInt("user_id"));
@@ -130,17 +198,13 @@ public class UserDbStorage implements UserStorage {
         return user;
     }
 
-    private Map<Integer, FriendshipStatus> loadUserFriends(int userId) {
-        String sql = "SELECT friend_id, status FROM friendships WHERE user_id = ?";
-        List<Map<String, Object>> results = jdbcTemplate.queryForList(sql, userId);
-
-        Map<Integer, FriendshipStatus> friends = new HashMap<>();
-        for (Map<String, Object> row : results) {
-            int friendId = (Integer) row.get("friend_id");
-            String statusStr = (String) row.get("status");
-            FriendshipStatus status = FriendshipStatus.valueOf(statusStr);
-            friends.put(friendId, status);
-        }
-        return friends;
+    // Раскладывает строки friendships по картам друзей уже загруженных пользователей
+    private RowCallbackHandler friendshipsHandler(Map<Integer, User> usersById) {
+        return rs -> {
+            User user = usersById.get(rs.getInt("user_id"));
+            if (user != null) {
+                user.getFriends().put(rs.getInt("friend_id"), FriendshipStatus.valueOf(rs.getString("status")));
+            }
+        };
     }
 }
\ No newline at end of file
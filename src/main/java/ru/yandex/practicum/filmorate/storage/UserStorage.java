@@ -3,8 +3,10 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserStorage {
     User create(User user);
@@ -13,8 +15,23 @@ public interface UserStorage {
 
     List<User> getAll();
 
+    // Страница пользователей с id больше afterId по возрастанию id
+    List<User> getPage(int afterId, int limit);
+
     Optional<User> getById(int id);
 
+    // Проверка существования без загрузки самой сущности
+    boolean exists(int id);
+
+    // true, если существуют все переданные id
+    boolean existsAll(int... ids);
+
+    // Какие из переданных id существуют, одним запросом
+    Set<Integer> getExistingIds(Collection<Integer> ids);
+
+    // Пользователи по списку id в порядке запроса; отсутствующие id пропускаются
+    List<User> getByIds(List<Integer> ids);
+
     void addFriend(int userId, int friendId, FriendshipStatus status);
 
     void confirmFriend(int userId, int friendId);
@@ -24,4 +41,12 @@ public interface UserStorage {
     List<User> getFriends(int userId);
 
     List<User> getCommonFriends(int userId, int otherId);
+
+    // Обходит все связи дружбы без сборки промежуточных коллекций
+    void forEachFriendship(FriendshipVisitor visitor);
+
+    @FunctionalInterface
+    interface FriendshipVisitor {
+        void visit(int userId, int friendId, FriendshipStatus status);
+    }
 }
\ No newline at end of file
@@ -16,4 +16,8 @@ VALUES
 (3, 'Мультфильм'),
 (4, 'Триллер'),
 (5, 'Документальный'),
-(6, 'Боевик');
\ No newline at end of file
+(6, 'Боевик');
+
+-- Синхронизируем денормализованный счетчик лайков с таблицей likes
+UPDATE films f
+SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id);
\ No newline at end of file
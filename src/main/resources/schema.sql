@@ -16,9 +16,13 @@ CREATE TABLE IF NOT EXISTS films (
     description VARCHAR(200),
     release_date DATE,
     duration INTEGER,
-    mpa_rating_id INTEGER REFERENCES mpa_ratings(mpa_rating_id)
+    mpa_rating_id INTEGER REFERENCES mpa_ratings(mpa_rating_id),
+    likes_count INTEGER DEFAULT 0 NOT NULL
 );
 
+-- Для баз, созданных до появления счетчика лайков
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count INTEGER DEFAULT 0 NOT NULL;
+
 CREATE TABLE IF NOT EXISTS film_genres (
     film_id INTEGER REFERENCES films(film_id) ON DELETE CASCADE,
     genre_id INTEGER REFERENCES genres(genre_id) ON DELETE CASCADE,
@@ -47,6 +51,7 @@ CREATE TABLE IF NOT EXISTS likes (
 );
 
 CREATE INDEX IF NOT EXISTS idx_films_mpa ON films(mpa_rating_id);
+CREATE INDEX IF NOT EXISTS idx_films_likes_count ON films(likes_count DESC, film_id);
 CREATE INDEX IF NOT EXISTS idx_film_genres_film ON film_genres(film_id);
 CREATE INDEX IF NOT EXISTS idx_film_genres_genre ON film_genres(genre_id);
 CREATE INDEX IF NOT EXISTS idx_friendships_user ON friendships(user_id);
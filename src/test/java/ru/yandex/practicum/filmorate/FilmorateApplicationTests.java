@@ -4,15 +4,43 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.RestClientException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmImportError;
+import ru.yandex.practicum.filmorate.model.FilmImportResult;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
+import ru.yandex.practicum.filmorate.model.LikeBatchStatus;
+import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.LikeMatrix;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureTestDatabase
@@ -21,6 +49,21 @@ class FilmorateApplicationTests {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @SpyBean
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LikeMatrix likeMatrix;
+
+    @Autowired
+    private FilmPopularityIndex popularityIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void contextLoads() {
         // Тест загрузки контекста Spring
@@ -54,6 +97,249 @@ class FilmorateApplicationTests {
         assertNotNull(response.getBody().getId());
     }
 
+    @Test
+    public void testGetUsersPage() {
+        User user = new User();
+        user.setEmail("page@mail.ru");
+        user.setLogin("pagelogin");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        restTemplate.postForEntity("/users", user, User.class);
+        restTemplate.postForEntity("/users", user, User.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/users?limit=1", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"items\""));
+        assertTrue(response.getBody().matches(".*\"nextCursor\":\\d+.*"));
+
+        ResponseEntity<String> invalid = restTemplate.getForEntity("/users?limit=0", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+    }
+
+    @Test
+    public void testCommonFriendsOfSeveralUsers() {
+        int[] ids = new int[4];
+        for (int i = 0; i < ids.length; i++) {
+            User user = new User();
+            user.setEmail("common" + i + "@mail.ru");
+            user.setLogin("common" + i);
+            user.setBirthday(LocalDate.of(2000, 1, 1));
+            ids[i] = restTemplate.postForEntity("/users", user, User.class).getBody().getId();
+        }
+        // Пользователь ids[3] - друг первых трех
+        for (int i = 0; i < 3; i++) {
+            restTemplate.put("/users/" + ids[i] + "/friends/" + ids[3], null);
+        }
+
+        ResponseEntity<User[]> response = restTemplate.getForEntity(
+                "/users/common-friends?ids=" + ids[0] + "," + ids[1] + "," + ids[2], User[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().length);
+        assertEquals(ids[3], response.getBody()[0].getId());
+
+        // ids[3] дружит с ids[0], поэтому ids[0] - друг друга для ids[1]
+        restTemplate.put("/users/" + ids[3] + "/friends/" + ids[0], null);
+        ResponseEntity<User[]> recommendations = restTemplate.getForEntity(
+                "/users/" + ids[1] + "/recommendations?limit=5", User[].class);
+        assertEquals(HttpStatus.OK, recommendations.getStatusCode());
+        assertEquals(ids[0], recommendations.getBody()[0].getId());
+
+        ResponseEntity<String> single = restTemplate.getForEntity(
+                "/users/common-friends?ids=" + ids[0], String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, single.getStatusCode());
+        ResponseEntity<String> missing = restTemplate.getForEntity(
+                "/users/common-friends?ids=" + ids[0] + ",999999", String.class);
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+    }
+
+    @Test
+    public void testFilmRecommendations() {
+        int[] userIds = new int[2];
+        for (int i = 0; i < userIds.length; i++) {
+            User user = new User();
+            user.setEmail("taste" + i + "@mail.ru");
+            user.setLogin("taste" + i);
+            user.setBirthday(LocalDate.of(2000, 1, 1));
+            userIds[i] = restTemplate.postForEntity("/users", user, User.class).getBody().getId();
+        }
+        int[] filmIds = new int[2];
+        for (int i = 0; i < filmIds.length; i++) {
+            Film film = new Film();
+            film.setName("Taste film " + i);
+            film.setDescription("Valid description");
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(100);
+            film.setMpa(new Mpa(1, null, null));
+            filmIds[i] = restTemplate.postForEntity("/films", film, Film.class).getBody().getId();
+        }
+        restTemplate.put("/films/" + filmIds[0] + "/like/" + userIds[0], null);
+        restTemplate.put("/films/" + filmIds[0] + "/like/" + userIds[1], null);
+        restTemplate.put("/films/" + filmIds[1] + "/like/" + userIds[1], null);
+
+        ResponseEntity<Film[]> response = restTemplate.getForEntity(
+                "/users/" + userIds[0] + "/film-recommendations", Film[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().length);
+        assertEquals(filmIds[1], response.getBody()[0].getId());
+    }
+
+    @Test
+    public void testPopularFilmsByGenreYearAndMpa() {
+        User user = new User();
+        user.setEmail("genre-fan@mail.ru");
+        user.setLogin("genrefan");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        int userId = restTemplate.postForEntity("/users", user, User.class).getBody().getId();
+        Film[] films = new Film[3];
+        for (int i = 0; i < films.length; i++) {
+            Film film = new Film();
+            film.setName("Genre film " + i);
+            film.setDescription("Valid description");
+            film.setReleaseDate(LocalDate.of(1931, 1, 1));
+            film.setDuration(100);
+            film.setMpa(new Mpa(i == 2 ? 2 : 1, null, null));
+            film.setGenres(List.of(new Genre(i == 0 ? 1 : 2, null)));
+            films[i] = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        }
+        restTemplate.put("/films/" + films[1].getId() + "/like/" + userId, null);
+
+        assertEquals(List.of(films[1].getId(), films[2].getId()),
+                filmIds("/films/popular?year=1931&genreId=2"));
+        assertEquals(List.of(films[2].getId()), filmIds("/films/popular?year=1931&mpaId=2"));
+        assertEquals(List.of(films[1].getId(), films[0].getId(), films[2].getId()),
+                filmIds("/films/popular?year=1931&count=3"));
+
+        // Смена жанров переносит фильм в рейтинг нового жанра
+        films[0].setGenres(List.of(new Genre(2, null)));
+        restTemplate.put("/films", films[0]);
+        assertEquals(List.of(films[1].getId(), films[0].getId(), films[2].getId()),
+                filmIds("/films/popular?year=1931&genreId=2"));
+        assertEquals(List.of(), filmIds("/films/popular?year=1931&genreId=1"));
+    }
+
+    @Test
+    public void testSearchFilms() {
+        Film film = new Film();
+        film.setName("Бриллиантовая рука");
+        film.setDescription("Комедия");
+        film.setReleaseDate(LocalDate.of(1969, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, null, null));
+        Film created = restTemplate.postForEntity("/films", film, Film.class).getBody();
+
+        assertEquals(List.of(created.getId()), filmIds("/films/search?query=бриллиантовая"));
+
+        created.setName("Кавказская пленница");
+        restTemplate.put("/films", created);
+        assertEquals(List.of(), filmIds("/films/search?query=бриллиантовая"));
+        assertEquals(List.of(created.getId()), filmIds("/films/search?query=Кавказская пленница"));
+
+        ResponseEntity<String> blank = restTemplate.getForEntity("/films/search?query= ", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, blank.getStatusCode());
+    }
+
+    private List<Integer> filmIds(String url) {
+        ResponseEntity<Film[]> response = restTemplate.getForEntity(url, Film[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return Arrays.stream(response.getBody()).map(Film::getId).toList();
+    }
+
+    @Test
+    public void testAddLikesBatch() {
+        User user = new User();
+        user.setEmail("batch@mail.ru");
+        user.setLogin("batchlogin");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        int userId = restTemplate.postForEntity("/users", user, User.class).getBody().getId();
+        Film film = new Film();
+        film.setName("Batch film");
+        film.setDescription("Valid description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, null, null));
+        int filmId = restTemplate.postForEntity("/films", film, Film.class).getBody().getId();
+
+        List<FilmLike> likes = List.of(
+                new FilmLike(filmId, userId),
+                new FilmLike(filmId, userId),
+                new FilmLike(999999, userId),
+                new FilmLike(filmId, 999999),
+                new FilmLike(null, userId));
+        ResponseEntity<LikeBatchResult[]> response = restTemplate.postForEntity(
+                "/films/likes:batch", likes, LikeBatchResult[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(LikeBatchStatus.ADDED, LikeBatchStatus.ALREADY_LIKED, LikeBatchStatus.FILM_NOT_FOUND,
+                        LikeBatchStatus.USER_NOT_FOUND, LikeBatchStatus.INVALID),
+                Arrays.stream(response.getBody()).map(LikeBatchResult::getStatus).toList());
+
+        ResponseEntity<String> empty = restTemplate.postForEntity("/films/likes:batch", List.of(), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, empty.getStatusCode());
+    }
+
+    @Test
+    public void testImportFilmsFromNdjson() {
+        String body = String.join("\n",
+                "{\"name\":\"Imported 1\",\"description\":\"d\",\"releaseDate\":\"2001-01-01\"," +
+                        "\"duration\":90,\"mpa\":{\"id\":1},\"genres\":[{\"id\":1}]}",
+                "{not json",
+                "",
+                "{\"name\":\"\",\"releaseDate\":\"2001-01-01\",\"duration\":90,\"mpa\":{\"id\":1}}",
+                "{\"name\":\"Imported 2\",\"releaseDate\":\"2002-02-02\",\"duration\":100,\"mpa\":{\"id\":2}}",
+                "{\"name\":\"No duration\",\"releaseDate\":\"2002-02-02\",\"mpa\":{\"id\":2}}",
+                "null");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+
+        ResponseEntity<FilmImportResult> response = restTemplate.postForEntity(
+                "/films:import", new HttpEntity<>(body, headers), FilmImportResult.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getImported());
+        assertEquals(List.of(2L, 4L, 6L, 7L), response.getBody().getErrors().stream()
+                .map(FilmImportError::getLine)
+                .toList());
+
+        Film[] films = restTemplate.getForObject("/films", Film[].class);
+        assertTrue(Arrays.stream(films).anyMatch(f -> "Imported 2".equals(f.getName())));
+    }
+
+    @Test
+    public void testStreamAllFilms() {
+        Film film = new Film();
+        film.setName("Streamed film");
+        film.setDescription("Valid description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, null, null));
+        film.setGenres(List.of(new Genre(2, null)));
+        Film created = restTemplate.postForEntity("/films", film, Film.class).getBody();
+
+        ResponseEntity<Film[]> response = restTemplate.getForEntity("/films?stream=true", Film[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Film streamed = Arrays.stream(response.getBody())
+                .filter(f -> f.getId().equals(created.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("Streamed film", streamed.getName());
+        assertEquals(2, streamed.getGenres().get(0).getId());
+    }
+
+    @Test
+    public void testStreamFailureAbortsResponse() {
+        Film film = new Film();
+        film.setName("Aborted stream film");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, null, null));
+        Film created = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        doAnswer(invocation -> {
+            Consumer<List<Film>> action = invocation.getArgument(0);
+            action.accept(List.of(created));
+            throw new IllegalStateException("База недоступна");
+        }).when(filmService).exportAll(any());
+
+        // Первая порция уже ушла со статусом 200: ответ обрывается, а не выглядит полным массивом
+        assertThrows(RestClientException.class, () -> restTemplate.getForObject("/films?stream=true", String.class));
+    }
+
     @Test
     public void testCreateUserWithSpacesInLogin() {
         User user = new User();
@@ -104,4 +390,92 @@ class FilmorateApplicationTests {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(response.getBody().contains("Продолжительность фильма должна быть положительным числом"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCreateFilmWithoutDuration() {
+        Film film = new Film();
+        film.setName("Valid name");
+        film.setDescription("Valid description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setMpa(new Mpa(1, null, null));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/films", film, String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().contains("Продолжительность фильма должна быть положительным числом"));
+    }
+
+    @Test
+    public void testStorageAndRequestMetrics() {
+        restTemplate.getForEntity("/films", String.class);
+
+        ResponseEntity<String> storage = restTemplate.getForEntity(
+                "/actuator/metrics/filmorate.storage?tag=storage:FilmDbStorage&tag=method:getAll", String.class);
+        assertEquals(HttpStatus.OK, storage.getStatusCode());
+        assertTrue(storage.getBody().contains("TOTAL_TIME"));
+
+        ResponseEntity<String> statements = restTemplate.getForEntity(
+                "/actuator/metrics/filmorate.http.statements?tag=uri:/films&tag=method:GET", String.class);
+        assertEquals(HttpStatus.OK, statements.getStatusCode());
+
+        ResponseEntity<String> percentiles = restTemplate.getForEntity(
+                "/actuator/metrics/http.server.requests.percentile?tag=phi:0.99", String.class);
+        assertEquals(HttpStatus.OK, percentiles.getStatusCode());
+    }
+
+    @Test
+    public void testConcurrentLikesKeepIndexesInSyncWithDatabase() throws Exception {
+        int[] filmIds = new int[2];
+        for (int i = 0; i < filmIds.length; i++) {
+            Film film = new Film();
+            film.setName("Concurrent likes " + i);
+            film.setDescription("Description");
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(100);
+            film.setMpa(new Mpa(1, null, null));
+            filmIds[i] = filmService.create(film).getId();
+        }
+        int[] userIds = new int[3];
+        for (int i = 0; i < userIds.length; i++) {
+            User user = new User();
+            user.setEmail("concurrent" + i + "@mail.ru");
+            user.setLogin("concurrent" + i);
+            user.setBirthday(LocalDate.of(2000, 1, 1));
+            userIds[i] = userService.create(user).getId();
+        }
+
+        // Потоки одновременно ставят и снимают лайки одних и тех же пар
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 300; i++) {
+                    int filmId = filmIds[random.nextInt(filmIds.length)];
+                    int userId = userIds[random.nextInt(userIds.length)];
+                    if (random.nextBoolean()) {
+                        filmService.addLike(filmId, userId);
+                    } else {
+                        filmService.removeLike(filmId, userId);
+                    }
+                }
+            }));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        for (int filmId : filmIds) {
+            Integer likes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id = ?",
+                    Integer.class, filmId);
+            assertEquals(likes, popularityIndex.getLikesCount(filmId));
+        }
+        for (int userId : userIds) {
+            int[] liked = jdbcTemplate.queryForList("SELECT film_id FROM likes WHERE user_id = ? ORDER BY film_id",
+                    Integer.class, userId).stream().mapToInt(Integer::intValue).toArray();
+            assertArrayEquals(liked, likeMatrix.getLikedFilmIds(userId));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package ru.yandex.practicum.filmorate;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Нагрузочное сравнение пула потоков Tomcat и виртуальных потоков (spring.threads.virtual.enabled).
+// Приложение поднимается дважды на своей базе в памяти; CLIENTS клиентов одновременно шлют смесь
+// лайков, популярных фильмов и списков друзей. В лог выводятся p50/p99 и максимум запросов,
+// одновременно находившихся в обработке на сервере. Тест идет больше минуты и исключен из обычного
+// mvn test; запуск: mvn test -Dgroups=load -DexcludedGroups=
+@Slf4j
+@Tag("load")
+class VirtualThreadsLoadTest {
+    private static final int FILMS = 200;
+    private static final int USERS = 200;
+    private static final int CLIENTS = 400;
+    private static final int REQUESTS_PER_CLIENT = 25;
+
+    @Test
+    void testCompareVirtualAndPlatformThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+        log.info("Пул потоков: p50 {} мс, p99 {} мс, одновременно {} запросов", platform.p50, platform.p99,
+                platform.maxInFlight);
+        log.info("Виртуальные потоки: p50 {} мс, p99 {} мс, одновременно {} запросов", virtual.p50, virtual.p99,
+                virtual.maxInFlight);
+
+        assertThat(platform.failures).isZero();
+        assertThat(virtual.failures).isZero();
+        // Tomcat по умолчанию обрабатывает не больше 200 запросов одновременно
+        assertThat(platform.maxInFlight).isLessThanOrEqualTo(200);
+    }
+
+    private record Result(double p50, double p99, int maxInFlight, int failures) {
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class,
+                InFlightConfig.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "logging.level.ru.yandex.practicum.filmorate=WARN",
+                        "logging.level.org.zalando.logbook=OFF")
+                .run()) {
+            seed(context);
+            InFlightFilter inFlight = context.getBean(InFlightFilter.class);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String base = "http://localhost:" + port;
+
+            long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+            AtomicInteger failures = new AtomicInteger();
+            try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+                 ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int c = 0; c < CLIENTS; c++) {
+                    int clientId = c;
+                    clients.submit(() -> {
+                        Random random = new Random(clientId);
+                        for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                            HttpRequest request = nextRequest(base, random);
+                            long start = System.nanoTime();
+                            try {
+                                HttpResponse<Void> response = client.send(request,
+                                        HttpResponse.BodyHandlers.discarding());
+                                if (response.statusCode() >= 300) {
+                                    failures.incrementAndGet();
+                                }
+                            } catch (IOException | InterruptedException e) {
+                                failures.incrementAndGet();
+                            }
+                            latencies[clientId * REQUESTS_PER_CLIENT + r] = System.nanoTime() - start;
+                        }
+                    });
+                }
+            }
+            Arrays.sort(latencies);
+            return new Result(percentile(latencies, 0.50), percentile(latencies, 0.99), inFlight.max.get(),
+                    failures.get());
+        }
+    }
+
+    private static HttpRequest nextRequest(String base, Random random) {
+        int filmId = random.nextInt(FILMS) + 1;
+        int userId = random.nextInt(USERS) + 1;
+        int kind = random.nextInt(10);
+        if (kind < 5) {
+            String uri = base + "/films/" + filmId + "/like/" + userId;
+            return kind < 4
+                    ? HttpRequest.newBuilder(URI.create(uri)).PUT(HttpRequest.BodyPublishers.noBody()).build()
+                    : HttpRequest.newBuilder(URI.create(uri)).DELETE().build();
+        }
+        String uri = kind < 8 ? base + "/films/popular?count=10" : base + "/users/" + userId + "/friends";
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        FilmService filmService = context.getBean(FilmService.class);
+        UserService userService = context.getBean(UserService.class);
+        for (int i = 1; i <= FILMS; i++) {
+            Film film = new Film();
+            film.setName("Load film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(100);
+            Mpa mpa = new Mpa();
+            mpa.setId(1);
+            film.setMpa(mpa);
+            filmService.create(film);
+        }
+        for (int i = 1; i <= USERS; i++) {
+            User user = new User();
+            user.setEmail("load" + i + "@mail.ru");
+            user.setLogin("load" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userService.create(user);
+            if (i > 1) {
+                userService.addFriend(i, i - 1);
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.ceil(p * sorted.length) - 1] / 1_000_000.0;
+    }
+
+    @TestConfiguration
+    static class InFlightConfig {
+        @Bean
+        InFlightFilter inFlightFilter() {
+            return new InFlightFilter();
+        }
+    }
+
+    // Считает запросы, одновременно находящиеся в обработке
+    static class InFlightFilter extends OncePerRequestFilter {
+        private final AtomicInteger current = new AtomicInteger();
+        private final AtomicInteger max = new AtomicInteger();
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            max.accumulateAndGet(current.incrementAndGet(), Math::max);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                current.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingUserStorageTest {
+
+    private UserDbStorage delegate;
+    private CachingUserStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(UserDbStorage.class);
+        when(delegate.getById(anyInt())).thenAnswer(invocation -> {
+            User user = new User();
+            user.setId(invocation.getArgument(0));
+            return Optional.of(user);
+        });
+        userStorage = new CachingUserStorage(delegate, 100, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testRepeatedReadsHitCache() {
+        userStorage.getById(1);
+        userStorage.getById(1);
+        userStorage.getById(1);
+
+        verify(delegate, times(1)).getById(1);
+        assertThat(userStorage.getCache().getHits()).isEqualTo(2);
+    }
+
+    @Test
+    void testCallerChangesDoNotReachCachedUser() {
+        User loaded = userStorage.getById(1).orElseThrow();
+        loaded.setName("changed");
+        loaded.setFriends(new HashMap<>(Map.of(2, FriendshipStatus.CONFIRMED)));
+
+        User cached = userStorage.getById(1).orElseThrow();
+        assertThat(cached.getName()).isNull();
+        assertThat(cached.getFriends()).isNull();
+        cached.setName("changed again");
+        assertThat(userStorage.getById(1).orElseThrow().getName()).isNull();
+        verify(delegate, times(1)).getById(1);
+    }
+
+    @Test
+    void testFriendshipChangesInvalidateAffectedUsers() {
+        userStorage.getById(1);
+        userStorage.getById(2);
+
+        // Заявка меняет только отправителя
+        userStorage.addFriend(1, 2, FriendshipStatus.PENDING);
+        userStorage.getById(1);
+        userStorage.getById(2);
+        verify(delegate, times(2)).getById(1);
+        verify(delegate, times(1)).getById(2);
+
+        userStorage.confirmFriend(2, 1);
+        userStorage.getById(1);
+        userStorage.getById(2);
+        verify(delegate, times(3)).getById(1);
+        verify(delegate, times(2)).getById(2);
+
+        userStorage.removeFriend(1, 2);
+        userStorage.getById(1);
+        userStorage.getById(2);
+        verify(delegate, times(4)).getById(1);
+        verify(delegate, times(3)).getById(2);
+    }
+
+    @Test
+    void testUpdateInvalidatesUser() {
+        userStorage.getById(1);
+        User user = new User();
+        user.setId(1);
+        userStorage.update(user);
+        userStorage.getById(1);
+
+        verify(delegate, times(2)).getById(1);
+    }
+}
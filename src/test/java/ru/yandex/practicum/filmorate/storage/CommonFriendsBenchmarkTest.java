@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Сравнивает общих друзей через двойной join в SQL и через пересечение списков в графе дружбы.
+// Время только пишется в лог, честное сравнение - CommonFriendsBenchmark в модуле benchmarks
+@Slf4j
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({UserDbStorage.class, StatementRegistry.class})
+class CommonFriendsBenchmarkTest {
+    private static final int USERS = 3000;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 100;
+
+    private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testGraphIntersectionMatchesSql() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("bench" + i + "@mail.ru");
+            user.setLogin("bench" + i);
+            user.setBirthday(LocalDate.of(2000, 1, 1));
+            ids.add(userStorage.create(user).getId());
+        }
+        int first = ids.get(0);
+        int second = ids.get(1);
+        int popular = ids.get(2);
+        // Первые два пользователя дружат с каждым вторым и каждым третьим, третий - почти со всеми
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 3; i < USERS; i++) {
+            if (i % 2 == 0) {
+                rows.add(new Object[]{first, ids.get(i), "PENDING"});
+            }
+            if (i % 3 == 0) {
+                rows.add(new Object[]{second, ids.get(i), "CONFIRMED"});
+            }
+            rows.add(new Object[]{popular, ids.get(i), "PENDING"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO friendships (user_id, friend_id, status) VALUES (?, ?, ?)", rows);
+
+        FriendshipIndex index = new FriendshipIndex(userStorage);
+        index.rebuild();
+
+        List<Integer> sqlIds = userStorage.getCommonFriends(first, second).stream()
+                .map(User::getId)
+                .sorted()
+                .toList();
+        assertThat(sqlIds).isNotEmpty();
+        assertThat(index.getCommonFriendIds(first, second)).isEqualTo(sqlIds);
+        assertThat(index.getCommonFriendIds(first, second, popular)).isEqualTo(sqlIds);
+
+        long sqlNanos = nanosPerCall(() -> userStorage.getCommonFriends(first, second));
+        long graphNanos = nanosPerCall(() -> index.getCommonFriendIds(first, second));
+        long graphThreeNanos = nanosPerCall(() -> index.getCommonFriendIds(first, second, popular));
+        log.info("Общие друзья ({} шт.): SQL {} нс, граф {} нс, граф для трех пользователей {} нс",
+                sqlIds.size(), sqlNanos, graphNanos, graphThreeNanos);
+
+        assertThat(QueryCounter.count(jdbcTemplate, () -> index.getCommonFriendIds(first, second))).isZero();
+    }
+
+    private long nanosPerCall(Supplier<?> action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.get();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+}
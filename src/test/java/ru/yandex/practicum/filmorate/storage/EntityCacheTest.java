@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityCacheTest {
+
+    @Test
+    void testEvictsLeastRecentlyUsedAndCounts() {
+        EntityCache<String> cache = new EntityCache<>(2);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, id -> load(loads, id));
+        cache.get(2, id -> load(loads, id));
+        cache.get(1, id -> load(loads, id));
+        // 2 давно не читался и вытесняется при добавлении 3
+        cache.get(3, id -> load(loads, id));
+        cache.get(1, id -> load(loads, id));
+        cache.get(2, id -> load(loads, id));
+
+        assertThat(loads.get()).isEqualTo(4);
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(4);
+        assertThat(cache.getEvictions()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testMissingEntityIsNotCached() {
+        EntityCache<String> cache = new EntityCache<>(2);
+
+        assertThat(cache.get(1, id -> Optional.empty())).isEmpty();
+        assertThat(cache.get(1, id -> Optional.of("late"))).contains("late");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testValueLoadedBeforeInvalidationIsNotCached() {
+        EntityCache<String> cache = new EntityCache<>(2);
+
+        // Инвалидация пришла, пока шла загрузка старого значения
+        Optional<String> stale = cache.get(1, id -> {
+            cache.invalidate(id);
+            return Optional.of("stale");
+        });
+
+        assertThat(stale).contains("stale");
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(1, id -> Optional.of("fresh"))).contains("fresh");
+    }
+
+    @Test
+    void testMutableValuesAreCopiedInAndOut() {
+        EntityCache<int[]> cache = new EntityCache<>(2, int[]::clone);
+        int[] loaded = {1};
+
+        cache.get(1, id -> Optional.of(loaded)).orElseThrow()[0] = 2;
+        int[] first = cache.get(1, id -> Optional.empty()).orElseThrow();
+        first[0] = 3;
+
+        assertThat(cache.get(1, id -> Optional.empty()).orElseThrow()).containsExactly(1);
+        assertThat(cache.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    void testBindsMicrometerMeters() {
+        EntityCache<String> cache = new EntityCache<>(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry, "test");
+
+        cache.get(1, id -> Optional.of("a"));
+        cache.get(1, id -> Optional.of("a"));
+        cache.get(2, id -> Optional.of("b"));
+
+        assertThat(registry.get("cache.gets").tag("cache", "test").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("cache.evictions").functionCounter().count()).isEqualTo(1);
+    }
+
+    private Optional<String> load(AtomicInteger loads, int id) {
+        loads.incrementAndGet();
+        return Optional.of("value" + id);
+    }
+}
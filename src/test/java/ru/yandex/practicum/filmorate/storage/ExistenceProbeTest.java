@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Число запросов на проверку существования через getById и через exists/existsAll.
+// Время и выделение памяти сравнивают FilmStorageBenchmark и UserStorageBenchmark с -prof gc
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmDbStorage.class, UserDbStorage.class, StatementRegistry.class, ReferenceDataRegistry.class,
+        MpaDbStorage.class, GenreDbStorage.class})
+class ExistenceProbeTest {
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testFilmProbeUsesOneQuery() {
+        int filmId = createFilm().getId();
+
+        long loadQueries = QueryCounter.count(jdbcTemplate, () -> filmStorage.getById(filmId));
+        long probeQueries = QueryCounter.count(jdbcTemplate, () -> filmStorage.exists(filmId));
+
+        assertThat(loadQueries).isEqualTo(2);
+        assertThat(probeQueries).isEqualTo(1);
+    }
+
+    @Test
+    void testFriendRequestChecksUseOneQuery() {
+        int userId = createUser("probe1").getId();
+        int friendId = createUser("probe2").getId();
+        userStorage.addFriend(userId, friendId, FriendshipStatus.PENDING);
+        userStorage.addFriend(friendId, userId, FriendshipStatus.PENDING);
+
+        // Прежняя проверка в UserService.addFriend: два getById, каждый с загрузкой дружбы
+        Runnable fullLoads = () -> {
+            userStorage.getById(userId);
+            userStorage.getById(friendId);
+        };
+        Runnable probe = () -> userStorage.existsAll(userId, friendId);
+
+        long loadQueries = QueryCounter.count(jdbcTemplate, fullLoads);
+        long probeQueries = QueryCounter.count(jdbcTemplate, probe);
+
+        assertThat(loadQueries).isEqualTo(4);
+        assertThat(probeQueries).isEqualTo(1);
+        assertThat(userStorage.existsAll(userId, friendId, Integer.MAX_VALUE)).isFalse();
+        assertThat(userStorage.exists(Integer.MAX_VALUE)).isFalse();
+    }
+
+    private Film createFilm() {
+        Film film = new Film();
+        film.setName("Probe Film");
+        film.setDescription("Probe Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, null, null));
+        film.setGenres(List.of(new Genre(1, null), new Genre(2, null)));
+        return filmStorage.create(film);
+    }
+
+    private User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return userStorage.create(user);
+    }
+}
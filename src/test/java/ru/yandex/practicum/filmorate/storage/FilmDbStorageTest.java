@@ -6,10 +6,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,10 +23,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({FilmDbStorage.class})
+@Import({FilmDbStorage.class, UserDbStorage.class, StatementRegistry.class, ReferenceDataRegistry.class,
+        MpaDbStorage.class, GenreDbStorage.class})
 class FilmDbStorageTest {
 
     private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
 
     @Test
     void testCreateFilm() {
@@ -35,7 +43,10 @@ class FilmDbStorageTest {
         mpa.setId(1);
         film.setMpa(mpa);
 
-        Film createdFilm = filmStorage.create(film);
+        Film[] created = new Film[1];
+        // Фильм без жанров - один запрос из StatementRegistry
+        assertThat(countQueries(() -> created[0] = filmStorage.create(film))).isEqualTo(1);
+        Film createdFilm = created[0];
 
         assertThat(createdFilm.getId()).isNotNull();
         assertThat(createdFilm.getName()).isEqualTo("Test Film");
@@ -92,4 +103,189 @@ class FilmDbStorageTest {
 
         assertThat(films).hasSize(2);
     }
+
+    @Test
+    void testGetAllLoadsGenresWithConstantQueryCount() {
+        Film lastFilm = null;
+        for (int i = 1; i <= 5; i++) {
+            Film film = new Film();
+            film.setName("Test Film " + i);
+            film.setDescription("Test Description " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, i));
+            film.setDuration(100 + i);
+
+            Mpa mpa = new Mpa();
+            mpa.setId(1);
+            film.setMpa(mpa);
+            film.setGenres(List.of(new Genre(1, null), new Genre(i, null)));
+
+            lastFilm = filmStorage.create(film);
+        }
+        int lastFilmId = lastFilm.getId();
+
+        // Фильмы + одна выборка жанров, независимо от количества фильмов
+        assertThat(countQueries(filmStorage::getAll)).isEqualTo(2);
+        assertThat(countQueries(() -> filmStorage.getPopularFilms(3))).isEqualTo(2);
+        assertThat(countQueries(() -> filmStorage.getById(lastFilmId))).isEqualTo(2);
+
+        List<Film> films = filmStorage.getAll();
+        assertThat(films).hasSize(5);
+        assertThat(films.get(0).getGenres()).extracting(Genre::getId).containsExactly(1);
+        assertThat(films.get(1).getGenres()).extracting(Genre::getId).containsExactly(1, 2);
+        assertThat(films.get(1).getGenres().get(1).getName()).isEqualTo("Драма");
+    }
+
+    @Test
+    void testLikesCountChangesOnlyOnActualInsertOrDelete() {
+        Film film = filmStorage.create(newFilm("Liked Film"));
+        Film otherFilm = filmStorage.create(newFilm("Other Film"));
+        User user = userStorage.create(newUser("liker"));
+        User otherUser = userStorage.create(newUser("other"));
+
+        filmStorage.addLike(film.getId(), user.getId());
+        filmStorage.addLike(film.getId(), user.getId());
+        filmStorage.addLike(film.getId(), otherUser.getId());
+        filmStorage.addLike(otherFilm.getId(), user.getId());
+        assertThat(likesCount(film.getId())).isEqualTo(2);
+        assertThat(likesCount(otherFilm.getId())).isEqualTo(1);
+
+        assertThat(filmStorage.getPopularFilms(2)).extracting(Film::getId)
+                .containsExactly(film.getId(), otherFilm.getId());
+
+        filmStorage.removeLike(film.getId(), user.getId());
+        filmStorage.removeLike(film.getId(), user.getId());
+        filmStorage.removeLike(otherFilm.getId(), otherUser.getId());
+        assertThat(likesCount(film.getId())).isEqualTo(1);
+        assertThat(likesCount(otherFilm.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void testAddLikesBatch() {
+        Film film = filmStorage.create(newFilm("Batch Film"));
+        Film otherFilm = filmStorage.create(newFilm("Other Batch Film"));
+        User user = userStorage.create(newUser("batch1"));
+        User otherUser = userStorage.create(newUser("batch2"));
+        filmStorage.addLike(film.getId(), user.getId());
+
+        boolean[] added = filmStorage.addLikes(List.of(
+                new FilmLike(film.getId(), user.getId()),
+                new FilmLike(film.getId(), otherUser.getId()),
+                new FilmLike(otherFilm.getId(), user.getId()),
+                new FilmLike(otherFilm.getId(), user.getId())));
+
+        assertThat(added).containsExactly(false, true, true, false);
+        assertThat(likesCount(film.getId())).isEqualTo(2);
+        assertThat(likesCount(otherFilm.getId())).isEqualTo(1);
+        assertThat(filmStorage.getExistingIds(List.of(film.getId(), otherFilm.getId(), Integer.MAX_VALUE)))
+                .containsExactlyInAnyOrder(film.getId(), otherFilm.getId());
+        assertThat(userStorage.getExistingIds(List.of(user.getId(), Integer.MAX_VALUE)))
+                .containsExactly(user.getId());
+    }
+
+    @Test
+    void testCreateAllAssignsIdsAndSavesGenres() {
+        List<Film> films = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Film film = newFilm("Imported Film " + i);
+            film.setGenres(List.of(new Genre(i, null), new Genre(i, null), new Genre(6, null)));
+            films.add(film);
+        }
+
+        filmStorage.createAll(films);
+
+        assertThat(films).extracting(Film::getId).doesNotContainNull().doesNotHaveDuplicates();
+        List<Film> loaded = filmStorage.getByIds(films.stream().map(Film::getId).toList());
+        assertThat(loaded).extracting(Film::getName)
+                .containsExactly("Imported Film 1", "Imported Film 2", "Imported Film 3");
+        assertThat(loaded.get(1).getGenres()).extracting(Genre::getId).containsExactly(2, 6);
+        assertThat(likesCount(films.get(0).getId())).isZero();
+    }
+
+    @Test
+    void testUpdateWritesOnlyChangedGenres() {
+        Film film = newFilm("Genre Diff Film");
+        film.setGenres(List.of(new Genre(1, null), new Genre(2, null)));
+        filmStorage.create(film);
+
+        // Без изменения жанров: UPDATE films и чтение сохраненных жанров, записей в film_genres нет
+        film.setGenres(List.of(new Genre(2, null), new Genre(1, null), new Genre(2, null)));
+        assertThat(countQueries(() -> filmStorage.update(film))).isEqualTo(2);
+
+        // Замена одного жанра: плюс одно удаление и одна вставка
+        film.setGenres(List.of(new Genre(2, null), new Genre(3, null)));
+        assertThat(countQueries(() -> filmStorage.update(film))).isEqualTo(4);
+        assertThat(filmStorage.getById(film.getId()).orElseThrow().getGenres())
+                .extracting(Genre::getId).containsExactly(2, 3);
+
+        film.setGenres(null);
+        filmStorage.update(film);
+        assertThat(filmStorage.getById(film.getId()).orElseThrow().getGenres()).isEmpty();
+    }
+
+    @Test
+    void testGetPageByKeyset() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            ids.add(filmStorage.create(newFilm("Paged Film " + i)).getId());
+        }
+
+        List<Film> firstPage = filmStorage.getPage(ids.get(0) - 1, 2);
+        assertThat(firstPage).extracting(Film::getId).containsExactly(ids.get(0), ids.get(1));
+
+        List<Film> secondPage = filmStorage.getPage(ids.get(1), 2);
+        assertThat(secondPage).extracting(Film::getId).containsExactly(ids.get(2), ids.get(3));
+
+        List<Film> lastPage = filmStorage.getPage(ids.get(3), 2);
+        assertThat(lastPage).extracting(Film::getId).containsExactly(ids.get(4));
+        assertThat(lastPage.get(0).getGenres()).isEmpty();
+    }
+
+    @Test
+    void testForEachChunkHydratesGenresPerChunk() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Film film = newFilm("Chunked Film " + i);
+            film.setGenres(List.of(new Genre(i, null)));
+            ids.add(filmStorage.create(film).getId());
+        }
+
+        List<List<Film>> chunks = new ArrayList<>();
+        filmStorage.forEachChunk(2, chunks::add);
+
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.size()).isLessThanOrEqualTo(2));
+        List<Film> streamed = chunks.stream().flatMap(List::stream).toList();
+        assertThat(streamed).extracting(Film::getId).containsSubsequence(ids);
+        assertThat(streamed.stream().filter(film -> ids.contains(film.getId())))
+                .allSatisfy(film -> assertThat(film.getGenres()).hasSize(1));
+    }
+
+    private int likesCount(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE film_id = ?", Integer.class, filmId);
+    }
+
+    private Film newFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Test Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        film.setMpa(mpa);
+        return film;
+    }
+
+    private User newUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private long countQueries(Runnable action) {
+        return QueryCounter.count(jdbcTemplate, action);
+    }
 }
\ No newline at end of file
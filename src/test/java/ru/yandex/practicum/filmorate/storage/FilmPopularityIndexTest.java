@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmPopularityIndexTest {
+
+    @Test
+    void testRebuildAndTopOrder() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        for (int i = 0; i < 4; i++) {
+            filmStorage.create(new Film());
+        }
+        filmStorage.addLike(2, 1);
+        filmStorage.addLike(2, 2);
+        filmStorage.addLike(3, 1);
+        filmStorage.addLike(4, 1);
+
+        FilmPopularityIndex index = new FilmPopularityIndex(filmStorage);
+        index.rebuild();
+
+        // При равном количестве лайков фильмы упорядочены по id
+        assertThat(index.getTopFilmIds(10)).containsExactly(2, 3, 4, 1);
+        assertThat(index.getTopFilmIds(2)).containsExactly(2, 3);
+
+        index.addLike(1);
+        index.addLike(1);
+        index.addLike(1);
+        index.removeLike(2);
+        assertThat(index.getTopFilmIds(3)).containsExactly(1, 2, 3);
+        assertThat(index.getLikesCount(1)).isEqualTo(3);
+        assertThat(index.getLikesCount(2)).isEqualTo(1);
+    }
+
+    @Test
+    void testFilteredTopFollowsLikesAndGenreChanges() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        filmStorage.create(film(2001, 1, 1));
+        filmStorage.create(film(2001, 2, 1, 2));
+        filmStorage.create(film(2002, 1, 2));
+        filmStorage.addLike(3, 1);
+
+        FilmPopularityIndex index = new FilmPopularityIndex(filmStorage);
+        index.rebuild();
+
+        assertThat(index.getTopFilmIds(10, 2, null, null)).containsExactly(3, 2);
+        assertThat(index.getTopFilmIds(10, null, 2001, null)).containsExactly(1, 2);
+        assertThat(index.getTopFilmIds(10, 1, 2001, 2)).containsExactly(2);
+        assertThat(index.getTopFilmIds(10, 5, null, null)).isEmpty();
+        assertThat(index.getTopFilmIds(10, null, null, null)).containsExactly(3, 1, 2);
+
+        index.addLike(2);
+        index.addLike(2);
+        assertThat(index.getTopFilmIds(10, 2, null, null)).containsExactly(2, 3);
+
+        Film updated = film(2002, 1, 1);
+        updated.setId(2);
+        index.updateFilm(updated);
+        assertThat(index.getTopFilmIds(10, 2, null, null)).containsExactly(3);
+        assertThat(index.getTopFilmIds(10, 1, null, null)).containsExactly(2, 1);
+        assertThat(index.getTopFilmIds(10, null, 2002, null)).containsExactly(2, 3);
+        assertThat(index.getTopFilmIds(1, null, 2002, null)).containsExactly(2);
+        assertThat(index.getLikesCount(2)).isEqualTo(2);
+    }
+
+    private static Film film(int year, int mpaId, int... genreIds) {
+        Film film = new Film();
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setMpa(new Mpa(mpaId, null, null));
+        film.setGenres(Arrays.stream(genreIds).mapToObj(id -> new Genre(id, null)).toList());
+        return film;
+    }
+
+    @Test
+    void testConcurrentLikesAreNotLost() throws InterruptedException {
+        FilmPopularityIndex index = new FilmPopularityIndex(new InMemoryFilmStorage());
+        index.rebuild();
+        int films = 20;
+        for (int filmId = 1; filmId <= films; filmId++) {
+            Film film = new Film();
+            film.setId(filmId);
+            index.addFilm(film);
+        }
+
+        int threads = 8;
+        int iterations = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        int filmId = (seed + i) % films + 1;
+                        // Каждый поток ставит два лайка и снимает один: итог +1 на итерацию
+                        index.addLike(filmId);
+                        index.addLike(filmId);
+                        index.removeLike(filmId);
+                        index.getTopFilmIds(5);
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        assertThat(errors).isEmpty();
+
+        int total = 0;
+        for (int filmId = 1; filmId <= films; filmId++) {
+            total += index.getLikesCount(filmId);
+        }
+        assertThat(total).isEqualTo(threads * iterations);
+
+        List<Integer> top = index.getTopFilmIds(films);
+        assertThat(top).hasSize(films).doesNotHaveDuplicates();
+        for (int i = 1; i < top.size(); i++) {
+            assertThat(index.getLikesCount(top.get(i - 1))).isGreaterThanOrEqualTo(index.getLikesCount(top.get(i)));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmSearchIndexTest {
+
+    @Test
+    void testRanksByMatchThenByLikes() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        filmStorage.create(film("Звёздные войны", "Космическая опера"));
+        filmStorage.create(film("Космос", "Документальный фильм о звёздах"));
+        filmStorage.create(film("Войны клонов", "Продолжение, снова звёздные войны"));
+        filmStorage.create(film("Терминатор", null));
+        filmStorage.addLike(2, 1);
+        filmStorage.addLike(2, 2);
+
+        FilmPopularityIndex popularityIndex = new FilmPopularityIndex(filmStorage);
+        popularityIndex.rebuild();
+        FilmSearchIndex index = new FilmSearchIndex(filmStorage, popularityIndex);
+        index.rebuild();
+
+        // Фильм 1: оба слова в названии (4); фильм 3: "войны" в названии и оба в описании (4), id больше
+        assertThat(index.search("звездные ВОЙНЫ", 10)).containsExactly(1, 3);
+        // Слова сравниваются целиком: "космическая" в описании фильма 1 не совпадает с "космос"
+        assertThat(index.search("космос", 10)).containsExactly(2);
+        // Фильм 3: "войны" в названии и в описании (3), фильм 1 - только в названии (2)
+        assertThat(index.search("войны", 1)).containsExactly(3);
+        assertThat(index.search("чужой", 10)).isEmpty();
+        assertThat(index.search("!!!", 10)).isEmpty();
+
+        // При равном совпадении выше фильм с большим числом лайков
+        popularityIndex.addLike(3);
+        assertThat(index.search("звездные войны", 10)).containsExactly(3, 1);
+
+        Film renamed = film("Терминатор 2", "Судный день");
+        renamed.setId(3);
+        index.put(renamed);
+        assertThat(index.search("войны", 10)).containsExactly(1);
+        assertThat(index.search("терминатор", 10)).containsExactly(3, 4);
+    }
+
+    @Test
+    void testRenameRemovesUnusedTerms() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        filmStorage.create(film("Чужой", "Ужасы в космосе"));
+        filmStorage.create(film("Чужие", "Продолжение, снова космос"));
+
+        FilmPopularityIndex popularityIndex = new FilmPopularityIndex(filmStorage);
+        popularityIndex.rebuild();
+        FilmSearchIndex index = new FilmSearchIndex(filmStorage, popularityIndex);
+        index.rebuild();
+        // Название: "чужой", "чужие"; описание: "ужасы", "в", "космосе", "продолжение", "снова", "космос"
+        assertThat(index.getTermCount()).isEqualTo(8);
+
+        Film renamed = film("Прометей", "Снова космос");
+        renamed.setId(1);
+        index.put(renamed);
+        assertThat(index.search("чужой", 10)).isEmpty();
+        assertThat(index.search("прометей", 10)).containsExactly(1);
+        assertThat(index.search("космос", 10)).containsExactly(1, 2);
+        // Слова только прежней версии фильма 1 ушли из индекса, "снова" и "космос" остались у фильма 2
+        assertThat(index.getTermCount()).isEqualTo(5);
+
+        // Повторное переименование в то же название ничего не меняет
+        index.put(renamed);
+        assertThat(index.getTermCount()).isEqualTo(5);
+    }
+
+    @Test
+    void testTokenize() {
+        assertThat(FilmSearchIndex.tokenize("Ёжик в тумане, 1975!")).containsExactly("ежик", "в", "тумане", "1975");
+        assertThat(FilmSearchIndex.tokenize("  ")).isEmpty();
+        assertThat(FilmSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    private static Film film(String name, String description) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription(description);
+        return film;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendIntersectionTest {
+    private final Random random = new Random(42);
+
+    @Test
+    void testStrategySelection() {
+        assertThat(FriendIntersection.chooseStrategy(packed(10, 1), packed(20, 1)))
+                .isEqualTo(FriendIntersection.Strategy.MERGE);
+        assertThat(FriendIntersection.chooseStrategy(packed(10, 1), packed(10_000, 1)))
+                .isEqualTo(FriendIntersection.Strategy.GALLOP);
+        assertThat(FriendIntersection.chooseStrategy(packed(5000, 2), packed(8000, 1)))
+                .isEqualTo(FriendIntersection.Strategy.BITSET);
+        // Большие, но разреженные списки: битовая карта по диапазону id была бы больше самих списков
+        assertThat(FriendIntersection.chooseStrategy(packed(5000, 1000), packed(8000, 999)))
+                .isEqualTo(FriendIntersection.Strategy.MERGE);
+    }
+
+    @Test
+    void testAllStrategiesAgreeWithNaiveIntersection() {
+        for (int round = 0; round < 50; round++) {
+            int[] a = randomPacked(random.nextInt(3000), 20_000);
+            int[] b = randomPacked(random.nextInt(3000), 20_000);
+            int[] expected = naive(a, b);
+
+            assertThat(FriendIntersection.merge(a, b)).containsExactly(expected);
+            assertThat(FriendIntersection.gallop(a, b)).containsExactly(expected);
+            assertThat(FriendIntersection.gallop(b, a)).containsExactly(expected);
+            if (a.length > 0 && b.length > 0) {
+                assertThat(FriendIntersection.bitset(a, b)).containsExactly(expected);
+            }
+            assertThat(FriendIntersection.intersect(a, b)).containsExactly(expected);
+        }
+    }
+
+    @Test
+    void testIntersectAllIgnoresStatusBit() {
+        int[] a = {2 << 1, (4 << 1) | 1, 6 << 1, (8 << 1) | 1};
+        int[] b = {(4 << 1) | 1, 5 << 1, (8 << 1)};
+        int[] c = IntStream.rangeClosed(1, 100).map(id -> (id << 1) | (id & 1)).toArray();
+
+        assertThat(FriendIntersection.unpack(FriendIntersection.intersectAll(a, b, c))).containsExactly(4, 8);
+        assertThat(FriendIntersection.unpack(FriendIntersection.intersectAll(a))).containsExactly(2, 4, 6, 8);
+        assertThat(FriendIntersection.intersectAll(a, new int[0], c)).isEmpty();
+    }
+
+    private static int[] packed(int size, int step) {
+        return IntStream.range(0, size).map(i -> (i * step + 1) << 1).toArray();
+    }
+
+    private int[] randomPacked(int size, int bound) {
+        return random.ints(size, 1, bound).distinct().sorted().map(id -> (id << 1) | random.nextInt(2)).toArray();
+    }
+
+    private static int[] naive(int[] a, int[] b) {
+        return Arrays.stream(a)
+                .map(value -> value >>> 1)
+                .filter(id -> Arrays.stream(b).anyMatch(value -> value >>> 1 == id))
+                .map(id -> id << 1)
+                .toArray();
+    }
+}
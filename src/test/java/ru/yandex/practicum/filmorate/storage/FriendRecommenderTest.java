@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendRecommenderTest {
+
+    @Test
+    void testRanksNonFriendsByMutualFriends() {
+        FriendshipGraph graph = new FriendshipGraph();
+        // Друзья пользователя 1: 2, 3, 4
+        graph.put(1, 2, FriendshipStatus.CONFIRMED);
+        graph.put(1, 3, FriendshipStatus.PENDING);
+        graph.put(1, 4, FriendshipStatus.PENDING);
+        // 5 - общий у троих, 6 и 7 - у двоих, 8 - у одного; 3 и 1 исключаются
+        graph.put(2, 5, FriendshipStatus.PENDING);
+        graph.put(3, 5, FriendshipStatus.PENDING);
+        graph.put(4, 5, FriendshipStatus.PENDING);
+        graph.put(2, 7, FriendshipStatus.PENDING);
+        graph.put(3, 7, FriendshipStatus.PENDING);
+        graph.put(2, 6, FriendshipStatus.PENDING);
+        graph.put(4, 6, FriendshipStatus.PENDING);
+        graph.put(4, 8, FriendshipStatus.PENDING);
+        graph.put(2, 3, FriendshipStatus.PENDING);
+        graph.put(2, 1, FriendshipStatus.PENDING);
+
+        assertThat(FriendRecommender.recommend(graph, 1, 10)).containsExactly(5, 6, 7, 8);
+        assertThat(FriendRecommender.recommend(graph, 1, 2)).containsExactly(5, 6);
+        assertThat(FriendRecommender.recommend(graph, 8, 10)).isEmpty();
+
+        graph.remove(2, 5);
+        graph.remove(3, 5);
+        assertThat(FriendRecommender.recommend(graph, 1, 2)).containsExactly(6, 7);
+    }
+
+    @Test
+    void testParallelCountingMatchesNaiveRanking() {
+        FriendshipGraph graph = new FriendshipGraph();
+        Random random = new Random(7);
+        int users = 5000;
+        for (int userId = 1; userId <= users; userId++) {
+            int degree = userId <= 400 ? 200 : 5;
+            for (int i = 0; i < degree; i++) {
+                graph.put(userId, 1 + random.nextInt(users), FriendshipStatus.PENDING);
+            }
+        }
+        // Пользователь 1 дружит с 400 активными пользователями: больше порога, работа делится между потоками
+        for (int friendId = 2; friendId <= 400; friendId++) {
+            graph.put(1, friendId, FriendshipStatus.CONFIRMED);
+        }
+
+        List<Integer> expected = naive(graph, 1, 25);
+        assertThat(FriendRecommender.recommend(graph, 1, 25)).isEqualTo(expected);
+    }
+
+    private static List<Integer> naive(FriendshipGraph graph, int userId, int limit) {
+        int[] friends = graph.friendIds(userId);
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int friendId : friends) {
+            for (int candidate : graph.friendIds(friendId)) {
+                if (candidate != userId && !graph.contains(userId, candidate)) {
+                    counts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendshipGraphTest {
+
+    @Test
+    void testFriendsAreSortedAndLastWriteWins() {
+        FriendshipGraph graph = new FriendshipGraph();
+        graph.put(1, 5, FriendshipStatus.PENDING);
+        graph.put(1, 3, FriendshipStatus.PENDING);
+        graph.put(1, 9, FriendshipStatus.CONFIRMED);
+        graph.remove(1, 3);
+        graph.put(1, 5, FriendshipStatus.CONFIRMED);
+        graph.put(1, 3, FriendshipStatus.PENDING);
+
+        assertThat(graph.friendIds(1)).containsExactly(3, 5, 9);
+        assertThat(graph.getStatus(1, 3)).isEqualTo(FriendshipStatus.PENDING);
+        assertThat(graph.getStatus(1, 5)).isEqualTo(FriendshipStatus.CONFIRMED);
+        assertThat(graph.getStatus(1, 4)).isNull();
+        assertThat(graph.friendIds(2)).isEmpty();
+
+        graph.replace(1, 3, FriendshipStatus.CONFIRMED);
+        graph.replace(1, 4, FriendshipStatus.CONFIRMED);
+        assertThat(graph.friendsMap(1)).containsOnlyKeys(3, 5, 9)
+                .containsEntry(3, FriendshipStatus.CONFIRMED);
+
+        graph.remove(1, 9);
+        assertThat(graph.contains(1, 9)).isFalse();
+        assertThat(graph.degree(1)).isEqualTo(2);
+    }
+
+    @Test
+    void testBufferOverflowMergesIntoSortedList() {
+        FriendshipGraph graph = new FriendshipGraph();
+        // Больше операций, чем вмещает буфер, в обратном порядке и с удалением каждого третьего
+        for (int friendId = 1000; friendId > 0; friendId--) {
+            graph.put(1, friendId, FriendshipStatus.PENDING);
+        }
+        for (int friendId = 3; friendId <= 1000; friendId += 3) {
+            graph.remove(1, friendId);
+        }
+
+        int[] ids = graph.friendIds(1);
+        assertThat(ids).hasSize(1000 - 333);
+        for (int i = 1; i < ids.length; i++) {
+            assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+            assertThat(ids[i] % 3).isNotZero();
+        }
+    }
+
+    @Test
+    void testCommonFriendIds() {
+        FriendshipGraph graph = new FriendshipGraph();
+        for (int friendId = 2; friendId <= 100; friendId += 2) {
+            graph.put(1, friendId, FriendshipStatus.PENDING);
+        }
+        for (int friendId = 3; friendId <= 100; friendId += 3) {
+            graph.put(2, friendId, FriendshipStatus.CONFIRMED);
+        }
+
+        int[] common = graph.commonFriendIds(1, 2);
+        assertThat(common).hasSize(16);
+        for (int id : common) {
+            assertThat(id % 6).isZero();
+        }
+        assertThat(graph.commonFriendIds(1, 42)).isEmpty();
+    }
+
+    @Test
+    void testInMemoryStorageUsesGraph() {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        for (int i = 0; i < 4; i++) {
+            storage.create(new User());
+        }
+        storage.addFriend(1, 3, FriendshipStatus.PENDING);
+        storage.addFriend(1, 2, FriendshipStatus.PENDING);
+        storage.addFriend(4, 2, FriendshipStatus.PENDING);
+        storage.confirmFriend(2, 4);
+
+        assertThat(storage.getFriends(1)).extracting(User::getId).containsExactly(2, 3);
+        assertThat(storage.getCommonFriends(1, 4)).extracting(User::getId).containsExactly(2);
+        assertThat(storage.getFriends(2)).isEmpty();
+
+        FriendshipIndex index = new FriendshipIndex(storage);
+        index.rebuild();
+        assertThat(index.getFriendIds(1)).containsExactly(2, 3);
+        assertThat(index.getGraph().getStatus(4, 2)).isEqualTo(FriendshipStatus.CONFIRMED);
+    }
+
+    @Test
+    void testConcurrentWritesAndReads() throws InterruptedException {
+        FriendshipGraph graph = new FriendshipGraph();
+        int threads = 8;
+        int friendsPerThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < friendsPerThread; i++) {
+                        int friendId = i * threads + thread;
+                        graph.put(1, friendId, FriendshipStatus.PENDING);
+                        graph.put(2, friendId, FriendshipStatus.PENDING);
+                        if (i % 2 == 0) {
+                            graph.remove(2, friendId);
+                        }
+                        graph.commonFriendIds(1, 2);
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        assertThat(errors).isEmpty();
+
+        assertThat(graph.degree(1)).isEqualTo(threads * friendsPerThread);
+        assertThat(graph.degree(2)).isEqualTo(threads * friendsPerThread / 2);
+        assertThat(graph.commonFriendIds(1, 2)).hasSize(threads * friendsPerThread / 2);
+    }
+}
@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryStorageConcurrencyTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void testConcurrentFilmCreatesAndLikesAreNotLost() throws InterruptedException {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        int filmsPerThread = 500;
+        int films = 50;
+        int usersPerThread = 1000;
+        Set<Integer> createdIds = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < filmsPerThread; i++) {
+                createdIds.add(filmStorage.create(new Film()).getId());
+            }
+        });
+        int totalFilms = THREADS * filmsPerThread;
+        assertThat(createdIds).hasSize(totalFilms);
+        assertThat(filmStorage.getAll()).hasSize(totalFilms);
+        assertThat(filmStorage.existsAll(1, totalFilms)).isTrue();
+        assertThat(filmStorage.exists(totalFilms + 1)).isFalse();
+
+        // Каждый поток лайкает все фильмы от своих пользователей, пересекаясь с остальными по фильмам
+        runConcurrently(thread -> {
+            for (int i = 0; i < usersPerThread; i++) {
+                int userId = thread * usersPerThread + i;
+                int filmId = i % films + 1;
+                assertThat(filmStorage.addLike(filmId, userId)).isTrue();
+                assertThat(filmStorage.addLike(filmId, userId)).isFalse();
+                if (i % 2 == 0) {
+                    assertThat(filmStorage.removeLike(filmId, userId)).isTrue();
+                }
+                filmStorage.getPopularFilms(5);
+            }
+        });
+
+        Map<Integer, Integer> counts = filmStorage.getLikesCounts();
+        int totalLikes = counts.values().stream().mapToInt(Integer::intValue).sum();
+        assertThat(totalLikes).isEqualTo(THREADS * usersPerThread / 2);
+    }
+
+    @Test
+    void testConcurrentFriendRequestsAreNotLost() throws InterruptedException {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        int users = 200;
+        for (int i = 0; i < users; i++) {
+            userStorage.create(new User());
+        }
+
+        // Все потоки одновременно меняют карту друзей пользователя 1
+        runConcurrently(thread -> {
+            for (int userId = 2 + thread; userId <= users; userId += THREADS) {
+                userStorage.addFriend(1, userId, FriendshipStatus.PENDING);
+                userStorage.addFriend(userId, 1, FriendshipStatus.PENDING);
+                userStorage.confirmFriend(1, userId);
+            }
+        });
+
+        assertThat(userStorage.getFriends(1)).hasSize(users - 1);
+        for (int userId = 2; userId <= users; userId++) {
+            assertThat(userStorage.getFriends(userId)).extracting(User::getId).containsExactly(1);
+        }
+    }
+
+    @Test
+    void testFriendshipIndexFollowsStorageUnderConcurrentChanges() throws InterruptedException {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        int users = 4;
+        for (int i = 0; i < users; i++) {
+            userStorage.create(new User());
+        }
+        FriendshipIndex friendshipIndex = new FriendshipIndex(userStorage);
+        friendshipIndex.rebuild();
+        UserService userService = new UserService(userStorage, friendshipIndex);
+
+        // Потоки одновременно добавляют, подтверждают и удаляют одни и те же пары с обеих сторон
+        runConcurrently(thread -> {
+            SplittableRandom random = new SplittableRandom(thread);
+            for (int i = 0; i < 2000; i++) {
+                int userId = random.nextInt(users) + 1;
+                int friendId = random.nextInt(users - 1) + 1;
+                if (friendId >= userId) {
+                    friendId++;
+                }
+                switch (random.nextInt(3)) {
+                    case 0 -> userService.addFriend(userId, friendId);
+                    case 1 -> userService.confirmFriend(userId, friendId);
+                    default -> userService.removeFriend(userId, friendId);
+                }
+            }
+        });
+
+        FriendshipIndex rebuilt = new FriendshipIndex(userStorage);
+        rebuilt.rebuild();
+        for (int userId = 1; userId <= users; userId++) {
+            assertThat(friendshipIndex.getFriendIds(userId)).isEqualTo(rebuilt.getFriendIds(userId));
+            for (int friendId = 1; friendId <= users; friendId++) {
+                assertThat(friendshipIndex.getGraph().getStatus(userId, friendId))
+                        .isEqualTo(rebuilt.getGraph().getStatus(userId, friendId));
+            }
+        }
+    }
+
+    @Test
+    void testBitmapConcurrentSetsAreNotLost() throws InterruptedException {
+        ConcurrentIdBitmap bitmap = new ConcurrentIdBitmap();
+        int idsPerThread = 20_000;
+
+        // Соседние id попадают в одно 64-битное слово из разных потоков
+        runConcurrently(thread -> {
+            for (int i = 0; i < idsPerThread; i++) {
+                bitmap.set(i * THREADS + thread);
+            }
+        });
+
+        for (int id = 0; id < THREADS * idsPerThread; id++) {
+            assertThat(bitmap.get(id)).isTrue();
+        }
+        assertThat(bitmap.get(THREADS * idsPerThread)).isFalse();
+        assertThat(bitmap.get(Integer.MAX_VALUE)).isFalse();
+        bitmap.set(Integer.MAX_VALUE);
+        assertThat(bitmap.get(Integer.MAX_VALUE)).isTrue();
+    }
+
+    private void runConcurrently(ThreadTask task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    task.run(thread);
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        assertThat(errors).isEmpty();
+    }
+
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class LikeMatrixTest {
+
+    @Test
+    void testRecommendsFilmsOfUsersWithOverlappingLikes() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        for (int i = 0; i < 6; i++) {
+            filmStorage.create(new Film());
+        }
+        // Пользователь 1 лайкнул 1 и 2; пользователь 2 совпадает с ним дважды, пользователь 3 - один раз
+        filmStorage.addLike(1, 1);
+        filmStorage.addLike(2, 1);
+        filmStorage.addLike(1, 2);
+        filmStorage.addLike(2, 2);
+        filmStorage.addLike(3, 2);
+        filmStorage.addLike(4, 2);
+        filmStorage.addLike(2, 3);
+        filmStorage.addLike(4, 3);
+        filmStorage.addLike(5, 3);
+        filmStorage.addLike(6, 4);
+
+        LikeMatrix matrix = new LikeMatrix(filmStorage);
+        matrix.rebuild();
+
+        // Фильм 4: вес 2 + 1, фильм 3: вес 2, фильм 5: вес 1; фильм 6 лайкнул только непохожий пользователь
+        assertThat(matrix.getRecommendedFilmIds(1, 10)).containsExactly(4, 3, 5);
+        assertThat(matrix.getRecommendedFilmIds(1, 1)).containsExactly(4);
+        assertThat(matrix.getRecommendedFilmIds(42, 10)).isEmpty();
+
+        matrix.addLike(4, 1);
+        matrix.removeLike(2, 2);
+        assertThat(matrix.getLikedFilmIds(1)).containsExactly(1, 2, 4);
+        // Теперь у пользователей 2 и 3 по два общих лайка с первым
+        assertThat(matrix.getRecommendedFilmIds(1, 10)).containsExactly(3, 5);
+    }
+
+    @Test
+    void testRecommendationLatencyAtMillionLikes() {
+        LikeMatrix matrix = new LikeMatrix(new InMemoryFilmStorage());
+        Random random = new Random(1);
+        int users = 20_000;
+        int films = 20_000;
+        int likesPerUser = 50;
+        for (int userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                // Квадрат равномерного числа смещает лайки к фильмам с малыми id, как у популярных фильмов
+                double r = random.nextDouble();
+                matrix.addLike(1 + (int) (films * r * r), userId);
+            }
+        }
+
+        for (int userId = 1; userId <= 200; userId++) {
+            matrix.getRecommendedFilmIds(userId, 10);
+        }
+        int calls = 200;
+        long start = System.nanoTime();
+        for (int userId = 1000; userId < 1000 + calls; userId++) {
+            assertThat(matrix.getRecommendedFilmIds(userId, 10)).hasSize(10);
+        }
+        long averageMillis = (System.nanoTime() - start) / calls / 1_000_000;
+        log.info("Рекомендация фильмов при {} лайках: {} мс в среднем", users * likesPerUser, averageMillis);
+
+        assertThat(averageMillis).isLessThan(20);
+    }
+}
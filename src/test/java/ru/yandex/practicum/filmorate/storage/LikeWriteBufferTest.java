@@ -0,0 +1,202 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LikeWriteBufferTest {
+
+    // Хранилище в памяти, считающее пачечные записи
+    private static class CountingFilmStorage extends InMemoryFilmStorage {
+        final AtomicInteger batches = new AtomicInteger();
+
+        @Override
+        public boolean[] addLikes(List<FilmLike> batch) {
+            batches.incrementAndGet();
+            return super.addLikes(batch);
+        }
+
+        @Override
+        public boolean[] removeLikes(List<FilmLike> batch) {
+            batches.incrementAndGet();
+            return super.removeLikes(batch);
+        }
+    }
+
+    private static CountingFilmStorage storageWithFilms(int count) {
+        CountingFilmStorage storage = new CountingFilmStorage();
+        for (int i = 0; i < count; i++) {
+            storage.create(new Film());
+        }
+        return storage;
+    }
+
+    @Test
+    void testOppositeOperationsCancelOut() {
+        CountingFilmStorage storage = storageWithFilms(1);
+        LikeWriteBuffer buffer = new LikeWriteBuffer(storage, true, 100, 10, 60_000, 0);
+
+        buffer.submit(1, 1, true);
+        buffer.submit(1, 1, false);
+        buffer.submit(1, 2, true);
+        buffer.submit(1, 2, false);
+        buffer.submit(1, 2, true);
+        assertThat(buffer.getPendingCount()).isEqualTo(1);
+
+        buffer.flush();
+        assertThat(storage.batches.get()).isEqualTo(1);
+        assertThat(storage.getLikesCounts().get(1)).isEqualTo(1);
+    }
+
+    @Test
+    void testFlushWritesLikesAndUnlikesInBatches() {
+        CountingFilmStorage storage = storageWithFilms(3);
+        storage.addLike(3, 1);
+        LikeWriteBuffer buffer = new LikeWriteBuffer(storage, true, 100, 2, 60_000, 0);
+
+        buffer.submit(1, 1, true);
+        buffer.submit(1, 2, true);
+        buffer.submit(2, 1, true);
+        buffer.submit(3, 1, false);
+        buffer.flush();
+
+        // Три лайка пачками по 2 и одна отмена
+        assertThat(storage.batches.get()).isEqualTo(3);
+        assertThat(storage.getLikesCounts()).containsEntry(1, 2).containsEntry(2, 1).containsEntry(3, 0);
+        assertThat(buffer.getPendingCount()).isZero();
+    }
+
+    @Test
+    void testFailedFlushRequeuesLikesAndUnlikes() {
+        AtomicInteger failures = new AtomicInteger(1);
+        CountingFilmStorage storage = new CountingFilmStorage() {
+            @Override
+            public boolean[] addLikes(List<FilmLike> batch) {
+                if (failures.getAndDecrement() > 0) {
+                    throw new IllegalStateException("База недоступна");
+                }
+                return super.addLikes(batch);
+            }
+        };
+        for (int i = 0; i < 2; i++) {
+            storage.create(new Film());
+        }
+        storage.addLike(2, 1);
+        LikeWriteBuffer buffer = new LikeWriteBuffer(storage, true, 100, 10, 60_000, 0);
+
+        buffer.submit(1, 1, true);
+        buffer.submit(1, 2, true);
+        buffer.submit(2, 1, false);
+        assertThatThrownBy(buffer::flush).isInstanceOf(IllegalStateException.class);
+        // Ни лайки, ни отмена не потеряны
+        assertThat(buffer.getPendingCount()).isEqualTo(3);
+        assertThat(storage.getLikesCounts()).containsEntry(1, 0).containsEntry(2, 1);
+
+        buffer.flush();
+        assertThat(buffer.getPendingCount()).isZero();
+        assertThat(storage.getLikesCounts()).containsEntry(1, 2).containsEntry(2, 0);
+    }
+
+    @Test
+    void testRejectsWhenQueueStaysFull() {
+        CountingFilmStorage storage = storageWithFilms(1);
+        // Фоновый поток не запущен: очередь не освобождается
+        LikeWriteBuffer buffer = new LikeWriteBuffer(storage, true, 2, 10, 60_000, 50);
+        buffer.submit(1, 1, true);
+        buffer.reserve(1);
+        buffer.submitReserved(1, 2, true);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> buffer.reserve(1)).isInstanceOf(OverloadedException.class);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(50_000_000L);
+
+        buffer.flush();
+        buffer.reserve(1);
+    }
+
+    @Test
+    void testReservesCapacityForWholeBatch() {
+        CountingFilmStorage storage = storageWithFilms(1);
+        LikeWriteBuffer buffer = new LikeWriteBuffer(storage, true, 4, 10, 60_000, 20);
+        buffer.submit(1, 1, true);
+        buffer.submit(1, 2, true);
+
+        // Пачке из трех места нет целиком, хотя на одну операцию оно есть
+        assertThatThrownBy(() -> buffer.reserve(3)).isInstanceOf(OverloadedException.class);
+        buffer.reserve(2);
+        // Зарезервированное место занято, хотя в очередь еще ничего не поставлено
+        assertThatThrownBy(() -> buffer.reserve(1)).isInstanceOf(OverloadedException.class);
+        buffer.release(1);
+        buffer.reserve(1);
+
+        // Пачка больше очереди проходит, когда очередь и резерв пусты
+        buffer.release(2);
+        buffer.flush();
+        buffer.reserve(10);
+    }
+
+    @Test
+    void testConcurrentReservationsDoNotOverfillQueue() throws InterruptedException {
+        CountingFilmStorage storage = storageWithFilms(1);
+        // Очередь не освобождается: из всех потоков место получают ровно capacity
+        LikeWriteBuffer buffer = new LikeWriteBuffer(storage, true, 10, 100, 60_000, 20);
+        int threads = 8;
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger nextUserId = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 10; i++) {
+                    try {
+                        buffer.reserve(1);
+                    } catch (OverloadedException e) {
+                        continue;
+                    }
+                    buffer.submitReserved(1, nextUserId.incrementAndGet(), true);
+                    accepted.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(accepted.get()).isEqualTo(10);
+        assertThat(buffer.getPendingCount()).isEqualTo(10);
+    }
+
+    @Test
+    void testBackgroundFlushAndFlushOnShutdown() throws InterruptedException {
+        CountingFilmStorage storage = storageWithFilms(2);
+        LikeWriteBuffer buffer = new LikeWriteBuffer(storage, true, 100, 2, 60_000, 1000);
+        buffer.start();
+
+        // Набралась пачка: запись не ждет интервала
+        buffer.submit(1, 1, true);
+        buffer.submit(1, 2, true);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (buffer.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(buffer.getPendingCount()).isZero();
+
+        // Остаток дописывается при остановке
+        buffer.submit(2, 1, true);
+        buffer.stop();
+        assertThat(storage.getLikesCounts()).containsEntry(1, 2).containsEntry(2, 1);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Считает выполненные запросы по встроенной статистике H2.
+// SET QUERY_STATISTICS фиксирует транзакцию, поэтому статистика переключается и читается
+// через отдельное соединение, а транзакция теста остается нетронутой.
+// CALL DATABASE() - однократный запрос метаданных драйвера при первом чтении сгенерированного ключа,
+// к запросам приложения он не относится
+final class QueryCounter {
+
+    private QueryCounter() {
+    }
+
+    static long count(JdbcTemplate jdbcTemplate, Runnable action) {
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SET QUERY_STATISTICS FALSE");
+            statement.execute("SET QUERY_STATISTICS TRUE");
+            action.run();
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(SUM(EXECUTION_COUNT), 0) " +
+                    "FROM INFORMATION_SCHEMA.QUERY_STATISTICS " +
+                    "WHERE SQL_STATEMENT NOT LIKE '%QUERY_STATISTICS%' " +
+                    "AND SQL_STATEMENT <> 'CALL DATABASE()'")) {
+                rs.next();
+                long count = rs.getLong(1);
+                statement.execute("SET QUERY_STATISTICS FALSE");
+                return count;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({ReferenceDataRegistry.class, MpaDbStorage.class, GenreDbStorage.class})
+class ReferenceDataRegistryTest {
+
+    private final ReferenceDataRegistry referenceData;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testLookupsDoNotQueryDatabase() {
+        long queries = QueryCounter.count(jdbcTemplate, () -> {
+            assertThat(referenceData.getAllMpa()).hasSize(5);
+            assertThat(referenceData.getMpaById(3)).get().extracting("name").isEqualTo("PG-13");
+            assertThat(referenceData.getMpaById(99)).isEmpty();
+            assertThat(referenceData.getGenreById(2)).get().extracting("name").isEqualTo("Драма");
+            assertThat(referenceData.getGenresByIds(List.of(6, 1, 42, 1)))
+                    .extracting(Genre::getId).containsExactly(1, 6);
+        });
+
+        assertThat(queries).isZero();
+        // Один и тот же общий экземпляр на каждый запрос
+        assertThat(referenceData.getGenreById(1).get()).isSameAs(referenceData.getGenreById(1).get());
+    }
+
+    @Test
+    void testReloadPicksUpNewRows() {
+        jdbcTemplate.update("INSERT INTO genres (genre_id, name) VALUES (7, 'Фантастика')");
+        assertThat(referenceData.getGenreById(7)).isEmpty();
+
+        referenceData.reload();
+
+        assertThat(referenceData.getGenreById(7)).get().extracting("name").isEqualTo("Фантастика");
+        assertThat(referenceData.getAllGenres()).hasSize(7);
+    }
+}
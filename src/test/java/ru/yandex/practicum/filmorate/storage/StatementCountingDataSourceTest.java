@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class StatementCountingDataSourceTest {
+    private final DataSource dataSource;
+
+    @Test
+    void testCountsStatementsInsideScope() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new StatementCountingDataSource(dataSource));
+        String byId = "SELECT name FROM genres WHERE genre_id = ?";
+
+        // Вне области запросы не считаются
+        jdbcTemplate.queryForList(byId, String.class, 1);
+
+        try (StatementStats stats = StatementStats.open()) {
+            for (int id = 1; id <= 3; id++) {
+                jdbcTemplate.queryForList(byId, String.class, id);
+            }
+            jdbcTemplate.queryForList("SELECT COUNT(*) FROM genres", Integer.class);
+            jdbcTemplate.batchUpdate("UPDATE genres SET name = name WHERE genre_id = ?",
+                    List.of(new Object[]{1}, new Object[]{2}));
+            // Проверка в другом потоке пишет в ту же область
+            CompletableFuture.runAsync(StatementStats.propagate(
+                    () -> jdbcTemplate.queryForList(byId, String.class, 4))).join();
+
+            assertThat(stats.getTotal()).isEqualTo(6);
+            assertThat(stats.getMostRepeated()).contains(Map.entry(byId, 4));
+        }
+    }
+}
@@ -6,9 +6,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,10 +20,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({UserDbStorage.class})
+@Import({UserDbStorage.class, StatementRegistry.class})
 class UserDbStorageTest {
 
     private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
 
     @Test
     void testCreateUser() {
@@ -30,7 +34,9 @@ class UserDbStorageTest {
         user.setName("Test User");
         user.setBirthday(LocalDate.of(2000, 1, 1));
 
-        User createdUser = userStorage.create(user);
+        User[] created = new User[1];
+        assertThat(QueryCounter.count(jdbcTemplate, () -> created[0] = userStorage.create(user))).isEqualTo(1);
+        User createdUser = created[0];
 
         assertThat(createdUser.getId()).isNotNull();
         assertThat(createdUser.getEmail()).isEqualTo("test@mail.ru");
@@ -94,4 +100,58 @@ class UserDbStorageTest {
         assertThat(updatedUser.getName()).isEqualTo("Updated Name");
         assertThat(updatedUser.getEmail()).isEqualTo("updated@mail.ru");
     }
+
+    @Test
+    void testGetPageByKeyset() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setEmail("paged" + i + "@mail.ru");
+            user.setLogin("paged" + i);
+            user.setBirthday(LocalDate.of(2000, 1, i));
+            ids.add(userStorage.create(user).getId());
+        }
+        userStorage.addFriend(ids.get(1), ids.get(0), FriendshipStatus.PENDING);
+        userStorage.addFriend(ids.get(2), ids.get(0), FriendshipStatus.PENDING);
+
+        List<User> firstPage = userStorage.getPage(ids.get(0) - 1, 2);
+        assertThat(firstPage).extracting(User::getId).containsExactly(ids.get(0), ids.get(1));
+        assertThat(firstPage.get(0).getFriends()).isEmpty();
+        assertThat(firstPage.get(1).getFriends()).containsOnlyKeys(ids.get(0));
+
+        List<User> lastPage = userStorage.getPage(ids.get(1), 2);
+        assertThat(lastPage).extracting(User::getId).containsExactly(ids.get(2));
+        assertThat(lastPage.get(0).getFriends()).containsOnlyKeys(ids.get(0));
+    }
+
+    @Test
+    void testGetAllLoadsFriendsWithConstantQueryCount() {
+        List<User> created = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            User user = new User();
+            user.setEmail("friend" + i + "@mail.ru");
+            user.setLogin("friend" + i);
+            user.setName("Friend " + i);
+            user.setBirthday(LocalDate.of(2000, 1, i));
+            created.add(userStorage.create(user));
+        }
+        int firstId = created.get(0).getId();
+        int secondId = created.get(1).getId();
+        int thirdId = created.get(2).getId();
+        userStorage.addFriend(firstId, secondId, FriendshipStatus.PENDING);
+        userStorage.addFriend(firstId, thirdId, FriendshipStatus.CONFIRMED);
+        userStorage.addFriend(secondId, firstId, FriendshipStatus.PENDING);
+
+        // Пользователи + одна выборка дружбы, независимо от количества пользователей
+        assertThat(QueryCounter.count(jdbcTemplate, userStorage::getAll)).isEqualTo(2);
+
+        List<User> users = userStorage.getAll();
+        assertThat(users).hasSize(4);
+        assertThat(users.get(0).getFriends())
+                .containsEntry(secondId, FriendshipStatus.PENDING)
+                .containsEntry(thirdId, FriendshipStatus.CONFIRMED)
+                .hasSize(2);
+        assertThat(users.get(1).getFriends()).containsOnlyKeys(firstId);
+        assertThat(users.get(3).getFriends()).isEmpty();
+    }
 }
\ No newline at end of file